@@ -0,0 +1,64 @@
+package ch.astorm.jchess.benchmarks;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Position.Representation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed positions and games used by the benchmarks, so the numbers can be compared
+ * from one commit to another.
+ */
+final class BenchmarkData {
+
+    /**
+     * Moves of Nakamura - Vachier-Lagrave, Abidjan 2019 (blitz). The game goes
+     * through castles, captures, checks and a promotion.
+     */
+    static final String[] GAME = ("e4 c5 Nc3 d6 Nf3 Nf6 h3 g6 d4 cxd4 Nxd4 Bg7 g3 Nc6 Be3 O-O Bg2 Nxd4 Bxd4 Be6 "+
+                                  "O-O a6 Re1 Rc8 Nd5 Bxd5 exd5 Nd7 Bxg7 Kxg7 c3 Re8 Qd4+ Kg8 Re2 Qb6 Qh4 Ne5 "+
+                                  "Kh2 Kg7 Rd1 Rc4 Qg5 h6 Qd2 Rc7 Rde1 Qb5 f4 Nc4 Qd4+ Kg8 b3 Nb6 c4 Qa5 f5 g5 "+
+                                  "f6 Nd7 fxe7 Ne5 c5 Ng6 cxd6 Rd7 Qf6 Qb6 Rf1 Nh8 Re6 fxe6 Qf8+ Rxf8 exf8=Q+ "+
+                                  "Kh7 Be4+ Ng6").split(" ");
+
+    /**
+     * Resource holding ten games of the 2019 Grand Chess Tour.
+     */
+    static final String GAMES_RESOURCE = "games.pgn";
+
+    private BenchmarkData() {}
+
+    /**
+     * Number of plies of {@link #GAME} to reach the position of the given phase.
+     */
+    static int getPlies(String phase) {
+        switch(phase) {
+            case "opening": return 0;
+            case "middlegame": return 30;
+            case "endgame": return 70;
+            default: throw new IllegalArgumentException("Unknown phase: "+phase);
+        }
+    }
+
+    /**
+     * Replays the first {@code plies} moves of {@link #GAME}.
+     */
+    static JChessGame replay(Representation representation, int plies) {
+        JChessGame game = JChessGame.newGame(representation);
+        for(int i=0 ; i<plies ; ++i) { game.play(GAME[i]); }
+        return game;
+    }
+
+    /**
+     * Returns the content of the {@link #GAMES_RESOURCE}.
+     */
+    static String loadGames() {
+        try(InputStream input = BenchmarkData.class.getResourceAsStream(GAMES_RESOURCE)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch(IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}
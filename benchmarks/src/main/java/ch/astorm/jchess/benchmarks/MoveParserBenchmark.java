@@ -0,0 +1,64 @@
+package ch.astorm.jchess.benchmarks;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.Position.Representation;
+import ch.astorm.jchess.io.MoveParser;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the parsing and the generation of moves in algebraic notation.
+ * Each invocation handles all the legal moves of the position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MoveParserBenchmark {
+
+    @Param({"MAP", "BITBOARD"})
+    public Representation representation;
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private MoveParser parser;
+    private List<Move> legalMoves;
+    private String[] moveStrings;
+
+    @Setup
+    public void setup() {
+        JChessGame game = BenchmarkData.replay(representation, BenchmarkData.getPlies(phase));
+        parser = new MoveParser(game);
+        legalMoves = game.getAvailableMoves();
+        moveStrings = legalMoves.stream().
+                filter(m -> !m.isPromotionNeeded()).
+                map(MoveParser::getMoveString).
+                toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void getMove(Blackhole blackhole) {
+        for(String moveString : moveStrings) { blackhole.consume(parser.getMove(moveString)); }
+    }
+
+    @Benchmark
+    public void getMoveString(Blackhole blackhole) {
+        for(Move move : legalMoves) { blackhole.consume(MoveParser.getMoveString(move)); }
+    }
+}
@@ -0,0 +1,71 @@
+package ch.astorm.jchess.benchmarks;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.io.PGNChannelWriter;
+import ch.astorm.jchess.io.PGNReader;
+import ch.astorm.jchess.io.PGNWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the PGN import and export of the games in {@link BenchmarkData#GAMES_RESOURCE}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PGNBenchmark {
+    private String pgn;
+    private List<JChessGame> games;
+
+    @Setup
+    public void setup() throws IOException {
+        pgn = BenchmarkData.loadGames();
+        games = new ArrayList<>();
+        try(PGNReader reader = new PGNReader(new StringReader(pgn))) {
+            JChessGame game;
+            while((game = reader.readGame())!=null) { games.add(game); }
+        }
+    }
+
+    @Benchmark
+    public void readGame(Blackhole blackhole) throws IOException {
+        try(PGNReader reader = new PGNReader(new StringReader(pgn))) {
+            JChessGame game;
+            while((game = reader.readGame())!=null) { blackhole.consume(game); }
+        }
+    }
+
+    @Benchmark
+    public void writeGame() {
+        PGNWriter writer = new PGNWriter(Writer.nullWriter());
+        for(JChessGame game : games) { writer.writeGame(game); }
+        writer.flush();
+    }
+
+    @Benchmark
+    public void writeGameChannel() throws IOException {
+        try(PGNChannelWriter writer = new PGNChannelWriter(Channels.newChannel(OutputStream.nullOutputStream()))) {
+            for(JChessGame game : games) { writer.writeGame(game); }
+        }
+    }
+}
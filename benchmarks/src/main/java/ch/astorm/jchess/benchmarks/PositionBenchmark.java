@@ -0,0 +1,58 @@
+package ch.astorm.jchess.benchmarks;
+
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the legal moves computation and of {@link Position#apply(ch.astorm.jchess.core.Move)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PositionBenchmark {
+
+    @Param({"MAP", "BITBOARD"})
+    public Representation representation;
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private Position position;
+    private Move move;
+
+    @Setup
+    public void setup() {
+        position = BenchmarkData.replay(representation, BenchmarkData.getPlies(phase)).getPosition();
+        move = position.getLegalMoves().stream().filter(m -> !m.isPromotionNeeded()).findFirst().get();
+    }
+
+    @Benchmark
+    public List<Move> getLegalMoves() {
+        //switching the color twice clears the legal moves cache of the position
+        position.switchColorOnMove();
+        position.switchColorOnMove();
+        return position.getLegalMoves();
+    }
+
+    @Benchmark
+    public Position apply() {
+        return position.apply(move);
+    }
+}
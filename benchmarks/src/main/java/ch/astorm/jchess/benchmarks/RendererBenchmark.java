@@ -0,0 +1,58 @@
+package ch.astorm.jchess.benchmarks;
+
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import ch.astorm.jchess.util.ASCIIPositionRenderer;
+import ch.astorm.jchess.util.DefaultASCIIStyle;
+import ch.astorm.jchess.util.UnicodePositionRenderer;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the text renderers of a middlegame position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RendererBenchmark {
+    private Position position;
+    private PrintStream out;
+    private ASCIIPositionRenderer asciiRenderer;
+
+    @Setup
+    public void setup() {
+        position = BenchmarkData.replay(Representation.MAP, BenchmarkData.getPlies("middlegame")).getPosition();
+        out = new PrintStream(OutputStream.nullOutputStream());
+        asciiRenderer = new ASCIIPositionRenderer(out, new DefaultASCIIStyle(), Color.WHITE);
+    }
+
+    @Benchmark
+    public CharSequence asciiRenderToString() {
+        return asciiRenderer.renderToString(position);
+    }
+
+    @Benchmark
+    public void asciiRender() {
+        ASCIIPositionRenderer.render(out, position, Color.WHITE);
+    }
+
+    @Benchmark
+    public void unicodeRender() {
+        UnicodePositionRenderer.render(out, position);
+    }
+}
@@ -6,6 +6,7 @@ import ch.astorm.jchess.core.Color;
 import ch.astorm.jchess.core.Move;
 import ch.astorm.jchess.core.Moveable;
 import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
 import ch.astorm.jchess.core.entities.Bishop;
 import ch.astorm.jchess.core.entities.King;
 import ch.astorm.jchess.core.entities.Knight;
@@ -105,9 +106,17 @@ public class JChessGame {
      * board).
      */
     public static JChessGame newEmptyGame(Color colorToPlay) {
+        return newEmptyGame(colorToPlay, Representation.MAP);
+    }
+
+    /**
+     * Creates a new {@code JChessGame} with an uninitialized {@link Position} (empty
+     * board) using the specified {@code representation}.
+     */
+    public static JChessGame newEmptyGame(Color colorToPlay, Representation representation) {
         Board board = new Board();
         RuleManager chessRules = new RuleManager();
-        Position position = new Position(board, chessRules, colorToPlay);
+        Position position = new Position(board, chessRules, colorToPlay, representation);
         return new JChessGame(chessRules, position, Status.NOT_FINISHED);
     }
 
@@ -116,7 +125,17 @@ public class JChessGame {
      * on the move.
      */
     public static JChessGame newGame() {
-        JChessGame game = newEmptyGame(Color.WHITE);
+        return newGame(Representation.MAP);
+    }
+
+    /**
+     * Creates a new {@code JChessGame} with the standard initial position and {@link Color#WHITE}
+     * on the move, using the specified {@code representation}.
+     * <p>The {@link Representation#BITBOARD} representation is much faster to compute
+     * the legal moves but only supports the standard chess pieces.</p>
+     */
+    public static JChessGame newGame(Representation representation) {
+        JChessGame game = newEmptyGame(Color.WHITE, representation);
         setInitialPosition(game.getPosition());
         return game;
     }
@@ -259,6 +278,46 @@ public class JChessGame {
         return status;
     }
 
+    /**
+     * Do the move specified by the {@code algebraicNotation} without checking that
+     * it is legal nor updating the game status.
+     * <p>This is much faster than {@link #play(java.lang.String, java.lang.String...)}
+     * but it must only be used to replay moves known to be legal, for instance when
+     * importing games exported by this API (see {@link MoveParser#getTrustedMove(java.lang.String)}).
+     * Once all the moves have been played, {@link #updateStatus()} must be invoked.</p>
+     *
+     * @param algebraicNotation The move (eg 'Nxb5').
+     * @throws InvalidMoveException If no entity can make the move.
+     */
+    public void playTrusted(String algebraicNotation) {
+        if(!status.isPlayAllowed()) { throw new IllegalStateException("Game is "+status); }
+        position = position.apply(moveParser.getTrustedMove(algebraicNotation));
+    }
+
+    /**
+     * Executes the specified {@code move} without updating the game status.
+     * <p>As {@link #playTrusted(java.lang.String)}, this method must only be used to replay
+     * moves known to be legal and {@link #updateStatus()} must be invoked once all the moves
+     * have been played.</p>
+     *
+     * @param move The move.
+     */
+    public void playTrusted(Move move) {
+        if(!status.isPlayAllowed()) { throw new IllegalStateException("Game is "+status); }
+        position = position.apply(move);
+    }
+
+    /**
+     * Updates the game status according to the current position.
+     *
+     * @return The new game status.
+     * @see #playTrusted(java.lang.String)
+     */
+    public Status updateStatus() {
+        status = ruleManager.getEndgameStatus(position);
+        return status;
+    }
+
     /**
      * Applies the given {@code move} to the position and updates the game status.
      *
@@ -0,0 +1,228 @@
+package ch.astorm.jchess.core;
+
+import ch.astorm.jchess.core.rules.RuleManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bitboard storage of the standard chess pieces on a regular 8x8 {@link Board}.
+ * Each piece type and color has its own 64-bit occupancy mask, while the entities
+ * themselves are kept in a square-indexed array to preserve their identity.
+ */
+class BitboardStorage extends MoveableStorage {
+    private final long[] pieces;
+    private final long[] colors;
+    private long occupied;
+    private final Moveable[] squares;
+    private int count;
+    private Map<Coordinate, Moveable> mapView;
+
+    BitboardStorage(Board board) {
+        if(board.getRowsCount()!=Board.DEFAULT_ROWS || board.getColumnsCount()!=Board.DEFAULT_COLUMNS) {
+            throw new IllegalArgumentException("Bitboards require a "+Board.DEFAULT_ROWS+"x"+Board.DEFAULT_COLUMNS+" board");
+        }
+
+        this.pieces = new long[2*Bitboards.NB_TYPES];
+        this.colors = new long[2];
+        this.squares = new Moveable[64];
+    }
+
+    private BitboardStorage(BitboardStorage storage) {
+        this.pieces = storage.pieces.clone();
+        this.colors = storage.colors.clone();
+        this.occupied = storage.occupied;
+        this.squares = storage.squares.clone();
+        this.count = storage.count;
+    }
+
+    @Override
+    Moveable get(Coordinate location) {
+        return squares[Bitboards.square(location)];
+    }
+
+    @Override
+    Moveable put(Coordinate location, Moveable moveable) {
+        int type = Bitboards.type(moveable);
+        if(type<0) { throw new IllegalArgumentException("Unsupported moveable for bitboards: "+moveable); }
+
+        int previousSquare = indexOf(moveable, type);
+        if(previousSquare>=0) { clear(previousSquare); }
+
+        int square = Bitboards.square(location);
+        Moveable previous = clear(square);
+        set(square, moveable, type);
+        return previous;
+    }
+
+    @Override
+    void add(Coordinate location, Moveable moveable) {
+        int type = Bitboards.type(moveable);
+        if(type<0) { throw new IllegalArgumentException("Unsupported moveable for bitboards: "+moveable); }
+        set(Bitboards.square(location), moveable, type);
+    }
+
+    private void set(int square, Moveable moveable, int type) {
+        long mask = 1L << square;
+        int color = moveable.getColor().ordinal();
+        pieces[color*Bitboards.NB_TYPES+type] |= mask;
+        colors[color] |= mask;
+        occupied |= mask;
+        squares[square] = moveable;
+        ++count;
+        mapView = null;
+    }
+
+    @Override
+    Moveable remove(Coordinate location) {
+        return clear(Bitboards.square(location));
+    }
+
+    private Moveable clear(int square) {
+        Moveable moveable = squares[square];
+        if(moveable==null) { return null; }
+
+        long mask = ~(1L << square);
+        int color = moveable.getColor().ordinal();
+        pieces[color*Bitboards.NB_TYPES+Bitboards.type(moveable)] &= mask;
+        colors[color] &= mask;
+        occupied &= mask;
+        squares[square] = null;
+        --count;
+        mapView = null;
+
+        return moveable;
+    }
+
+    private int indexOf(Moveable moveable, int type) {
+        long candidates = pieces[moveable.getColor().ordinal()*Bitboards.NB_TYPES+type];
+        while(candidates!=0) {
+            int square = Long.numberOfTrailingZeros(candidates);
+            if(squares[square]==moveable) { return square; }
+            candidates &= candidates-1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the square-indexed entities. The returned array must not be modified.
+     */
+    Moveable[] squares() {
+        return squares;
+    }
+
+    /**
+     * Returns the occupancy masks indexed by color and piece type. The returned
+     * array must not be modified.
+     */
+    long[] pieces() {
+        return pieces;
+    }
+
+    @Override
+    Coordinate getLocation(Moveable moveable) {
+        if(moveable==null) { return null; }
+
+        int type = Bitboards.type(moveable);
+        if(type<0) { return null; }
+
+        int square = indexOf(moveable, type);
+        return square>=0 ? Bitboards.COORDINATES[square] : null;
+    }
+
+    @Override
+    Coordinate findLocation(Class<? extends Moveable> clazz, Color color) {
+        int type = Bitboards.type(clazz);
+        long candidates = type>=0 ? pieces[color.ordinal()*Bitboards.NB_TYPES+type] : colors[color.ordinal()];
+        while(candidates!=0) {
+            int square = Long.numberOfTrailingZeros(candidates);
+            if(clazz.isAssignableFrom(squares[square].getClass())) { return Bitboards.COORDINATES[square]; }
+            candidates &= candidates-1;
+        }
+        return null;
+    }
+
+    @Override
+    int size() {
+        return count;
+    }
+
+    @Override
+    Map<Coordinate, Moveable> asMap() {
+        if(mapView==null) {
+            Map<Coordinate, Moveable> map = new LinkedHashMap<>(count*2);
+            long remaining = occupied;
+            while(remaining!=0) {
+                int square = Long.numberOfTrailingZeros(remaining);
+                map.put(Bitboards.COORDINATES[square], squares[square]);
+                remaining &= remaining-1;
+            }
+            mapView = Collections.unmodifiableMap(map);
+        }
+        return mapView;
+    }
+
+    @Override
+    MoveableStorage copy() {
+        return new BitboardStorage(this);
+    }
+
+    @Override
+    boolean canBeReached(Position position, RuleManager ruleManager, Coordinate location, Color color) {
+        if(ruleManager.getClass()!=RuleManager.class) { return super.canBeReached(position, ruleManager, location, color); }
+
+        int square = Bitboards.square(location);
+        int offset = color.ordinal()*Bitboards.NB_TYPES;
+
+        //pawns reach their diagonals regardless of what is on the target square
+        long pawns = pieces[offset+Bitboards.PAWN];
+        if((Bitboards.PAWN_ATTACKS[color.opposite().ordinal()][square] & pawns)!=0) { return true; }
+
+        //other pieces cannot reach a square occupied by their own color
+        if((colors[color.ordinal()] & (1L << square))!=0) { return false; }
+
+        if((Bitboards.KNIGHT_ATTACKS[square] & pieces[offset+Bitboards.KNIGHT])!=0) { return true; }
+        if((Bitboards.KING_ATTACKS[square] & pieces[offset+Bitboards.KING])!=0) { return true; }
+
+        long queens = pieces[offset+Bitboards.QUEEN];
+        long straight = pieces[offset+Bitboards.ROOK] | queens;
+        if(straight!=0 && (Bitboards.rookAttacks(square, occupied) & straight)!=0) { return true; }
+
+        long diagonal = pieces[offset+Bitboards.BISHOP] | queens;
+        return diagonal!=0 && (Bitboards.bishopAttacks(square, occupied) & diagonal)!=0;
+    }
+
+    @Override
+    List<Coordinate> attackersOf(Position position, RuleManager ruleManager, Coordinate location, Color color, Class<? extends Moveable> clazz, int column, int row) {
+        int type = Bitboards.type(clazz);
+        if(type<0 || ruleManager.getClass()!=RuleManager.class) { return super.attackersOf(position, ruleManager, location, color, clazz, column, row); }
+
+        int square = Bitboards.square(location);
+        long candidates = pieces[color.ordinal()*Bitboards.NB_TYPES+type];
+        if(column>=0) { candidates &= Bitboards.FILE_A << column; }
+        if(row>=0) { candidates &= Bitboards.RANK_1 << (row*8); }
+
+        //pawns reach their diagonals regardless of what is on the target square
+        if(type!=Bitboards.PAWN && (colors[color.ordinal()] & (1L << square))!=0) { candidates = 0; }
+
+        //the pieces that reach the square are the ones attacked from it by the same piece type
+        switch(type) {
+            case Bitboards.PAWN: candidates &= Bitboards.PAWN_ATTACKS[color.opposite().ordinal()][square]; break;
+            case Bitboards.KNIGHT: candidates &= Bitboards.KNIGHT_ATTACKS[square]; break;
+            case Bitboards.KING: candidates &= Bitboards.KING_ATTACKS[square]; break;
+            case Bitboards.BISHOP: candidates &= Bitboards.bishopAttacks(square, occupied); break;
+            case Bitboards.ROOK: candidates &= Bitboards.rookAttacks(square, occupied); break;
+            default: candidates &= Bitboards.rookAttacks(square, occupied) | Bitboards.bishopAttacks(square, occupied); break;
+        }
+
+        List<Coordinate> attackers = new ArrayList<>(Long.bitCount(candidates));
+        while(candidates!=0) {
+            int candidate = Long.numberOfTrailingZeros(candidates);
+            if(squares[candidate].getClass()==clazz) { attackers.add(Bitboards.COORDINATES[candidate]); }
+            candidates &= candidates-1;
+        }
+        return attackers;
+    }
+}
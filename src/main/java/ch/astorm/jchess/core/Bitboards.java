@@ -0,0 +1,149 @@
+package ch.astorm.jchess.core;
+
+import ch.astorm.jchess.core.entities.Bishop;
+import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Knight;
+import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+
+/**
+ * Precomputed tables and helpers to work with 64-bit bitboards on a regular 8x8
+ * {@link Board}. Squares are indexed from 0 (a1) to 63 (h8), row by row.
+ */
+final class Bitboards {
+    static final int PAWN = 0;
+    static final int KNIGHT = 1;
+    static final int BISHOP = 2;
+    static final int ROOK = 3;
+    static final int QUEEN = 4;
+    static final int KING = 5;
+    static final int NB_TYPES = 6;
+
+    static final int NORTH = 0;
+    static final int EAST = 1;
+    static final int NORTH_EAST = 2;
+    static final int NORTH_WEST = 3;
+    static final int SOUTH = 4;
+    static final int WEST = 5;
+    static final int SOUTH_WEST = 6;
+    static final int SOUTH_EAST = 7;
+
+    static final long FILE_A = 0x0101010101010101L;
+    static final long RANK_1 = 0xFFL;
+
+    private static final int[][] DIRECTIONS = {{1,0}, {0,1}, {1,1}, {1,-1}, {-1,0}, {0,-1}, {-1,-1}, {-1,1}};
+
+    static final Coordinate[] COORDINATES = new Coordinate[64];
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    static final long[][] RAYS = new long[8][64];
+
+    static {
+        for(int sq=0 ; sq<64 ; ++sq) {
+            int row = sq >>> 3;
+            int column = sq & 7;
+            COORDINATES[sq] = new Coordinate(row, column);
+
+            KNIGHT_ATTACKS[sq] = offsets(row, column, new int[][]{{2,1}, {2,-1}, {-2,1}, {-2,-1}, {1,2}, {1,-2}, {-1,2}, {-1,-2}});
+            KING_ATTACKS[sq] = offsets(row, column, DIRECTIONS);
+            PAWN_ATTACKS[Color.WHITE.ordinal()][sq] = offsets(row, column, new int[][]{{1,1}, {1,-1}});
+            PAWN_ATTACKS[Color.BLACK.ordinal()][sq] = offsets(row, column, new int[][]{{-1,1}, {-1,-1}});
+
+            for(int dir=0 ; dir<8 ; ++dir) {
+                long ray = 0;
+                int r = row+DIRECTIONS[dir][0];
+                int c = column+DIRECTIONS[dir][1];
+                while(r>=0 && r<8 && c>=0 && c<8) {
+                    ray |= 1L << (r*8+c);
+                    r += DIRECTIONS[dir][0];
+                    c += DIRECTIONS[dir][1];
+                }
+                RAYS[dir][sq] = ray;
+            }
+        }
+    }
+
+    private Bitboards() {}
+
+    private static long offsets(int row, int column, int[][] increments) {
+        long mask = 0;
+        for(int[] incr : increments) {
+            int r = row+incr[0];
+            int c = column+incr[1];
+            if(r>=0 && r<8 && c>=0 && c<8) { mask |= 1L << (r*8+c); }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the square index of the specified {@code coordinate}.
+     */
+    static int square(Coordinate coordinate) {
+        return coordinate.getRow()*8+coordinate.getColumn();
+    }
+
+    /**
+     * Returns the piece type index of {@code moveable} or -1 if it is not a standard
+     * chess piece.
+     */
+    static int type(Moveable moveable) {
+        if(moveable instanceof Pawn) { return PAWN; }
+        if(moveable instanceof Knight) { return KNIGHT; }
+        if(moveable instanceof Bishop) { return BISHOP; }
+        if(moveable instanceof Rook) { return ROOK; }
+        if(moveable instanceof Queen) { return QUEEN; }
+        if(moveable instanceof King) { return KING; }
+        return -1;
+    }
+
+    /**
+     * Returns the piece type index of {@code clazz} or -1 if it is not a standard
+     * chess piece class.
+     */
+    static int type(Class<?> clazz) {
+        if(clazz==Pawn.class) { return PAWN; }
+        if(clazz==Knight.class) { return KNIGHT; }
+        if(clazz==Bishop.class) { return BISHOP; }
+        if(clazz==Rook.class) { return ROOK; }
+        if(clazz==Queen.class) { return QUEEN; }
+        if(clazz==King.class) { return KING; }
+        return -1;
+    }
+
+    /**
+     * Returns the squares attacked along the {@code direction} ray from {@code square},
+     * stopping at (and including) the first blocker in {@code occupied}.
+     */
+    static long rayAttacks(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if(blockers==0) { return ray; }
+
+        int blocker = direction<SOUTH ?
+                Long.numberOfTrailingZeros(blockers) :
+                63-Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[direction][blocker];
+    }
+
+    /**
+     * Returns the squares attacked by a rook on {@code square}.
+     */
+    static long rookAttacks(int square, long occupied) {
+        return rayAttacks(NORTH, square, occupied) |
+               rayAttacks(EAST, square, occupied) |
+               rayAttacks(SOUTH, square, occupied) |
+               rayAttacks(WEST, square, occupied);
+    }
+
+    /**
+     * Returns the squares attacked by a bishop on {@code square}.
+     */
+    static long bishopAttacks(int square, long occupied) {
+        return rayAttacks(NORTH_EAST, square, occupied) |
+               rayAttacks(NORTH_WEST, square, occupied) |
+               rayAttacks(SOUTH_EAST, square, occupied) |
+               rayAttacks(SOUTH_WEST, square, occupied);
+    }
+}
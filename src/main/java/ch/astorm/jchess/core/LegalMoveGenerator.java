@@ -0,0 +1,374 @@
+package ch.astorm.jchess.core;
+
+import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.core.entities.Rook;
+import ch.astorm.jchess.core.rules.Displacement;
+import ch.astorm.jchess.core.rules.RuleManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Legal moves generator for the standard chess rules on a regular 8x8 {@link Board}.
+ * <p>The pieces that give check and the pinned pieces are computed once per position.
+ * Each candidate move is then validated with a few mask operations, instead of being
+ * applied on the position to see if the king can be reached.</p>
+ */
+final class LegalMoveGenerator {
+    private final Position position;
+    private final Moveable[] squares;
+    private final long[] pieces;
+    private final int[] order;
+    private final Color color;
+    private final int us;
+    private final int them;
+    private final long own;
+    private final long occupied;
+
+    private int kingSquare = -1;
+    private long checkers;
+    private long checkMask = -1L;
+    private long pinned;
+    private long[] pinRays;
+    private long attacked;
+
+    private LegalMoveGenerator(Position position, Moveable[] squares, long[] pieces, int[] order) {
+        this.position = position;
+        this.squares = squares;
+        this.pieces = pieces;
+        this.order = order;
+        this.color = position.getColorOnMove();
+        this.us = color.ordinal();
+        this.them = color.opposite().ordinal();
+
+        long[] colors = new long[2];
+        for(int i=0 ; i<pieces.length ; ++i) { colors[i/Bitboards.NB_TYPES] |= pieces[i]; }
+        this.own = colors[us];
+        this.occupied = colors[0] | colors[1];
+    }
+
+    /**
+     * Returns the legal moves of {@code position} or null if the generator does not
+     * support it (custom {@link RuleManager}, {@link Board} or {@link Moveable} entities).
+     *
+     * @throws IllegalStateException If the color on move has multiple kings.
+     */
+    static List<Move> generate(Position position, MoveableStorage storage, RuleManager ruleManager) {
+        if(ruleManager.getClass()!=RuleManager.class) { return null; }
+
+        Board board = position.getBoard();
+        if(board.getRowsCount()!=Board.DEFAULT_ROWS || board.getColumnsCount()!=Board.DEFAULT_COLUMNS) { return null; }
+
+        Moveable[] squares;
+        long[] pieces;
+        int[] order = null;
+        if(storage instanceof BitboardStorage) {
+            BitboardStorage bitboards = (BitboardStorage)storage;
+            squares = bitboards.squares();
+            pieces = bitboards.pieces();
+        } else {
+            //keeps the iteration order of the entities, hence the order of the moves
+            squares = new Moveable[64];
+            pieces = new long[2*Bitboards.NB_TYPES];
+            order = new int[storage.size()];
+            int index = 0;
+            for(Entry<Coordinate, Moveable> entry : storage.asMap().entrySet()) {
+                Moveable moveable = entry.getValue();
+                int type = Bitboards.type(moveable);
+                if(type<0) { return null; }
+
+                int square = Bitboards.square(entry.getKey());
+                squares[square] = moveable;
+                order[index++] = square;
+                pieces[moveable.getColor().ordinal()*Bitboards.NB_TYPES+type] |= 1L << square;
+            }
+        }
+
+        return new LegalMoveGenerator(position, squares, pieces, order).generate();
+    }
+
+    private long pieces(int color, int type) {
+        return pieces[color*Bitboards.NB_TYPES+type];
+    }
+
+    private List<Move> generate() {
+        long kings = pieces(us, Bitboards.KING);
+        if(Long.bitCount(kings)>1) { throw new IllegalStateException("Multiple "+color+" king in position"); }
+        if(kings!=0) {
+            kingSquare = Long.numberOfTrailingZeros(kings);
+            computeChecksAndPins();
+            computeAttacked();
+        }
+
+        //in double check, only the king can move
+        boolean doubleCheck = Long.bitCount(checkers)>1;
+
+        List<Move> moves = new ArrayList<>(48);
+        if(order!=null) {
+            for(int from : order) {
+                if((own & (1L << from))!=0) { addMoves(moves, from, doubleCheck); }
+            }
+        } else {
+            long remaining = own;
+            while(remaining!=0) {
+                addMoves(moves, Long.numberOfTrailingZeros(remaining), doubleCheck);
+                remaining &= remaining-1;
+            }
+        }
+
+        if(!doubleCheck) { addEnPassantMoves(moves); }
+        return moves;
+    }
+
+    private void addMoves(List<Move> moves, int from, boolean doubleCheck) {
+        int type = Bitboards.type(squares[from]);
+        if(type==Bitboards.KING) {
+            addKingMoves(moves, from);
+            return;
+        }
+        if(doubleCheck) { return; }
+
+        switch(type) {
+            case Bitboards.PAWN: addPawnMoves(moves, from); break;
+            case Bitboards.KNIGHT: addMoves(moves, from, Bitboards.KNIGHT_ATTACKS[from]); break;
+            case Bitboards.BISHOP: addMoves(moves, from, Bitboards.bishopAttacks(from, occupied)); break;
+            case Bitboards.ROOK: addMoves(moves, from, Bitboards.rookAttacks(from, occupied)); break;
+            case Bitboards.QUEEN: addMoves(moves, from, Bitboards.bishopAttacks(from, occupied) | Bitboards.rookAttacks(from, occupied)); break;
+        }
+    }
+
+    /**
+     * Computes the pieces that give check to the king, the squares where a piece
+     * can block or capture a single checker and the pinned pieces with the ray they
+     * can move along.
+     */
+    private void computeChecksAndPins() {
+        long straight = pieces(them, Bitboards.ROOK) | pieces(them, Bitboards.QUEEN);
+        long diagonal = pieces(them, Bitboards.BISHOP) | pieces(them, Bitboards.QUEEN);
+
+        checkers = (Bitboards.PAWN_ATTACKS[us][kingSquare] & pieces(them, Bitboards.PAWN)) |
+                   (Bitboards.KNIGHT_ATTACKS[kingSquare] & pieces(them, Bitboards.KNIGHT)) |
+                   (Bitboards.KING_ATTACKS[kingSquare] & pieces(them, Bitboards.KING));
+
+        long sliderCheckRay = 0;
+        for(int dir=0 ; dir<8 ; ++dir) {
+            long sliders = isStraight(dir) ? straight : diagonal;
+            if((Bitboards.RAYS[dir][kingSquare] & sliders)==0) { continue; }
+
+            long ray = Bitboards.rayAttacks(dir, kingSquare, occupied);
+            long blocker = ray & occupied;
+            if(blocker==0) { continue; }
+
+            if((blocker & sliders)!=0) {
+                checkers |= blocker;
+                sliderCheckRay = ray;
+            } else if((blocker & own)!=0) {
+                int blockerSquare = Long.numberOfTrailingZeros(blocker);
+                long beyond = Bitboards.rayAttacks(dir, blockerSquare, occupied);
+                if((beyond & occupied & sliders)!=0) {
+                    if(pinRays==null) { pinRays = new long[64]; }
+                    pinned |= blocker;
+                    pinRays[blockerSquare] = ray | beyond;
+                }
+            }
+        }
+
+        int nbCheckers = Long.bitCount(checkers);
+        if(nbCheckers==1) { checkMask = sliderCheckRay!=0 ? sliderCheckRay : checkers; }
+        else if(nbCheckers>1) { checkMask = 0; }
+    }
+
+    private static boolean isStraight(int direction) {
+        return direction==Bitboards.NORTH || direction==Bitboards.EAST ||
+               direction==Bitboards.SOUTH || direction==Bitboards.WEST;
+    }
+
+    /**
+     * Computes the squares attacked by the opponent. The king is removed from the
+     * occupancy so it cannot walk away along the ray of a slider that gives check.
+     */
+    private void computeAttacked() {
+        long occupancy = occupied & ~(1L << kingSquare);
+
+        long pawns = pieces(them, Bitboards.PAWN);
+        while(pawns!=0) {
+            attacked |= Bitboards.PAWN_ATTACKS[them][Long.numberOfTrailingZeros(pawns)];
+            pawns &= pawns-1;
+        }
+
+        long knights = pieces(them, Bitboards.KNIGHT);
+        while(knights!=0) {
+            attacked |= Bitboards.KNIGHT_ATTACKS[Long.numberOfTrailingZeros(knights)];
+            knights &= knights-1;
+        }
+
+        long kings = pieces(them, Bitboards.KING);
+        while(kings!=0) {
+            attacked |= Bitboards.KING_ATTACKS[Long.numberOfTrailingZeros(kings)];
+            kings &= kings-1;
+        }
+
+        long diagonal = pieces(them, Bitboards.BISHOP) | pieces(them, Bitboards.QUEEN);
+        while(diagonal!=0) {
+            attacked |= Bitboards.bishopAttacks(Long.numberOfTrailingZeros(diagonal), occupancy);
+            diagonal &= diagonal-1;
+        }
+
+        long straight = pieces(them, Bitboards.ROOK) | pieces(them, Bitboards.QUEEN);
+        while(straight!=0) {
+            attacked |= Bitboards.rookAttacks(Long.numberOfTrailingZeros(straight), occupancy);
+            straight &= straight-1;
+        }
+    }
+
+    /**
+     * Returns the squares where the piece on {@code from} can go without leaving
+     * its king in check.
+     */
+    private long legalTargets(int from) {
+        long targets = checkMask;
+        if((pinned & (1L << from))!=0) { targets &= pinRays[from]; }
+        return targets;
+    }
+
+    private void addMoves(List<Move> moves, int from, long targets) {
+        addTargets(moves, from, targets & legalTargets(from));
+    }
+
+    private void addTargets(List<Move> moves, int from, long targets) {
+        targets &= ~own;
+
+        Moveable moveable = squares[from];
+        Coordinate location = Bitboards.COORDINATES[from];
+        while(targets!=0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets-1;
+
+            moves.add(new Move(position, new Displacement(moveable, location, Bitboards.COORDINATES[to]), squares[to]));
+        }
+    }
+
+    private void addPawnMoves(List<Move> moves, int from) {
+        int direction = us==Color.WHITE.ordinal() ? 8 : -8;
+        int startRow = us==Color.WHITE.ordinal() ? 1 : Board.DEFAULT_ROWS-2;
+
+        long targets = Bitboards.PAWN_ATTACKS[us][from] & occupied & ~own;
+        int push = from+direction;
+        if(push>=0 && push<64 && (occupied & (1L << push))==0) {
+            targets |= 1L << push;
+
+            int doublePush = push+direction;
+            if((from >>> 3)==startRow && (occupied & (1L << doublePush))==0) { targets |= 1L << doublePush; }
+        }
+        targets &= legalTargets(from);
+
+        Moveable pawn = squares[from];
+        Coordinate location = Bitboards.COORDINATES[from];
+        while(targets!=0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets-1;
+
+            Move move = new Move(position, new Displacement(pawn, location, Bitboards.COORDINATES[to]), squares[to]);
+            int row = to >>> 3;
+            move.setPromotionNeeded(row==0 || row==Board.DEFAULT_ROWS-1);
+            moves.add(move);
+        }
+    }
+
+    /**
+     * Adds the en-passant captures. Since two pawns leave the same row, the king is
+     * checked against the sliders with the resulting occupancy.
+     */
+    private void addEnPassantMoves(List<Move> moves) {
+        Moveable captured;
+        int capturedSquare;
+        Move lastMove = position.getLastMove();
+        if(lastMove==null) {
+            Coordinate location = position.getInitialEnPassant();
+            if(location==null) { return; }
+
+            capturedSquare = Bitboards.square(location);
+            captured = squares[capturedSquare];
+            if(captured==null || captured.getClass()!=Pawn.class || captured.getColor().ordinal()!=them) { return; }
+        } else {
+            Displacement displacement = lastMove.getDisplacement();
+            captured = displacement.getMoveable();
+            if(captured.getClass()!=Pawn.class || captured.getColor().ordinal()!=them) { return; }
+
+            int oldRow = displacement.getOldLocation().getRow();
+            int newRow = displacement.getNewLocation().getRow();
+            if((oldRow!=1 && oldRow!=Board.DEFAULT_ROWS-2) || Math.abs(newRow-oldRow)!=2) { return; }
+
+            capturedSquare = Bitboards.square(displacement.getNewLocation());
+            if(squares[capturedSquare]!=captured) { return; }
+        }
+
+        int target = capturedSquare+(us==Color.WHITE.ordinal() ? 8 : -8);
+        if(target<0 || target>=64 || (occupied & (1L << target))!=0) { return; }
+
+        long candidates = Bitboards.PAWN_ATTACKS[them][target] & pieces(us, Bitboards.PAWN);
+        while(candidates!=0) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates-1;
+
+            if(!isEnPassantLegal(from, capturedSquare, target)) { continue; }
+            moves.add(new Move(position, new Displacement(squares[from], Bitboards.COORDINATES[from], Bitboards.COORDINATES[target]), captured));
+        }
+    }
+
+    private boolean isEnPassantLegal(int from, int capturedSquare, int target) {
+        if(kingSquare<0) { return true; }
+        if((checkMask & ((1L << target) | (1L << capturedSquare)))==0) { return false; }
+
+        long occupancy = (occupied & ~(1L << from) & ~(1L << capturedSquare)) | (1L << target);
+        long straight = pieces(them, Bitboards.ROOK) | pieces(them, Bitboards.QUEEN);
+        long diagonal = pieces(them, Bitboards.BISHOP) | pieces(them, Bitboards.QUEEN);
+        return (Bitboards.rookAttacks(kingSquare, occupancy) & straight)==0 &&
+               (Bitboards.bishopAttacks(kingSquare, occupancy) & diagonal)==0;
+    }
+
+    private void addKingMoves(List<Move> moves, int from) {
+        addTargets(moves, from, Bitboards.KING_ATTACKS[from] & ~attacked);
+
+        Moveable king = squares[from];
+        if(checkers!=0 || position.getDisplacementCount(king)>0) { return; }
+
+        Move smallCastling = getCastlingMove(from, king, Board.DEFAULT_COLUMNS-1, 1);
+        if(smallCastling!=null) { moves.add(smallCastling); }
+
+        Move bigCastling = getCastlingMove(from, king, 0, -1);
+        if(bigCastling!=null) { moves.add(bigCastling); }
+    }
+
+    /**
+     * Returns the castling move with the rook on {@code rookColumn} or null.
+     * The king must not be in check, the squares in between must be empty and the
+     * squares crossed by the king must not be attacked.
+     */
+    private Move getCastlingMove(int from, Moveable king, int rookColumn, int direction) {
+        int row = from >>> 3;
+        int column = from & 7;
+
+        int rookSquare = row*8+rookColumn;
+        Moveable rook = squares[rookSquare];
+        if(!(rook instanceof Rook) || rook.getColor()!=color) { return null; }
+        if(position.getDisplacementCount(rook)>0) { return null; }
+
+        for(int i=1 ; i<=3 ; ++i) {
+            int inBetweenColumn = column+(direction*i);
+            if(inBetweenColumn<0 || inBetweenColumn>=Board.DEFAULT_COLUMNS) { return null; }
+
+            long inBetween = 1L << (row*8+inBetweenColumn);
+            if((i<3 || direction<0) && (occupied & inBetween)!=0) { return null; }
+            if(i<3 && (attacked & inBetween)!=0) { return null; }
+        }
+
+        int kingColumn = column+(2*direction);
+        Coordinate newKingLocation = Bitboards.COORDINATES[row*8+kingColumn];
+        Coordinate newRookLocation = Bitboards.COORDINATES[row*8+kingColumn-direction];
+        return new Move(position,
+                        new Displacement(king, Bitboards.COORDINATES[from], newKingLocation),
+                        Arrays.asList(new Displacement(rook, Bitboards.COORDINATES[rookSquare], newRookLocation)));
+    }
+}
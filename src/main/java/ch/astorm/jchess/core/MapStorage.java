@@ -0,0 +1,73 @@
+package ch.astorm.jchess.core;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.commons.collections4.BidiMap;
+import org.apache.commons.collections4.bidimap.DualHashBidiMap;
+
+/**
+ * Hash-based storage that supports any kind of {@link Moveable} and {@link Board}.
+ */
+class MapStorage extends MoveableStorage {
+    private final BidiMap<Coordinate, Moveable> moveables;
+
+    MapStorage() {
+        this.moveables = new DualHashBidiMap<>();
+    }
+
+    private MapStorage(MapStorage storage) {
+        this.moveables = new DualHashBidiMap<>(storage.moveables);
+    }
+
+    @Override
+    Moveable get(Coordinate location) {
+        return moveables.get(location);
+    }
+
+    @Override
+    Moveable put(Coordinate location, Moveable moveable) {
+        moveables.removeValue(moveable);
+        return moveables.put(location, moveable);
+    }
+
+    @Override
+    void add(Coordinate location, Moveable moveable) {
+        moveables.put(location, moveable);
+    }
+
+    @Override
+    Moveable remove(Coordinate location) {
+        return moveables.remove(location);
+    }
+
+    @Override
+    Coordinate getLocation(Moveable moveable) {
+        return moveables.getKey(moveable);
+    }
+
+    @Override
+    Coordinate findLocation(Class<? extends Moveable> clazz, Color color) {
+        for(Entry<Coordinate, Moveable> entry : moveables.entrySet()) {
+            Moveable moveable = entry.getValue();
+            if(clazz.isAssignableFrom(moveable.getClass()) && moveable.getColor()==color) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    int size() {
+        return moveables.size();
+    }
+
+    @Override
+    Map<Coordinate, Moveable> asMap() {
+        return moveables;
+    }
+
+    @Override
+    MoveableStorage copy() {
+        return new MapStorage(this);
+    }
+}
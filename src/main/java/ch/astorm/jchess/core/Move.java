@@ -133,9 +133,7 @@ public class Move {
      * {@link Position#apply(ch.astorm.jchess.moves.Move)} method.
      */
     protected void apply(Position position) {
-        Moveable promoteTo = getPromotion();
-        if(promotionNeeded && promoteTo==null) { throw new IllegalStateException("No promotion has been set"); }
-        if(!promotionNeeded && promoteTo!=null) { throw new IllegalStateException("A promotion has been set"); }
+        checkPromotion();
 
         if(capturedEntity!=null) {
             Coordinate capturedLocation = position.getLocation(capturedEntity);
@@ -151,9 +149,18 @@ public class Move {
             }
         }
 
+        position.updateHalfMoveClock(this);
         afterMove = position;
     }
 
+    /**
+     * Checks that the promotion has been set only if it is needed.
+     */
+    void checkPromotion() {
+        if(promotionNeeded && promoteTo==null) { throw new IllegalStateException("No promotion has been set"); }
+        if(!promotionNeeded && promoteTo!=null) { throw new IllegalStateException("A promotion has been set"); }
+    }
+
     /**
      * Returns this {@code Move} in algebraic notation.
      * @see MoveParser#getMoveString(ch.astorm.jchess.core.Move)
@@ -0,0 +1,93 @@
+package ch.astorm.jchess.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.ListIterator;
+
+/**
+ * Persistent, append-only history of the moves that reach a {@link Position}.
+ * Each node only holds its last move and a link to the history before it, hence
+ * all the positions of a game share the same nodes and appending a move does
+ * not copy anything.
+ * <p>The history is exposed as an unmodifiable {@code List}. The size and the last
+ * move are available in constant time, while random access walks back the links.
+ * Iterations are done on a snapshot built in a single pass.</p>
+ */
+final class MoveHistory extends AbstractList<Move> {
+    static final MoveHistory EMPTY = new MoveHistory(null, null, 0);
+
+    private final MoveHistory parent;
+    private final Move move;
+    private final int size;
+
+    private MoveHistory(MoveHistory parent, Move move, int size) {
+        this.parent = parent;
+        this.move = move;
+        this.size = size;
+    }
+
+    /**
+     * Returns a new history with {@code move} appended.
+     */
+    MoveHistory append(Move move) {
+        return new MoveHistory(this, move, size+1);
+    }
+
+    /**
+     * Returns the history without its last move.
+     *
+     * @throws IllegalStateException If the history is empty.
+     */
+    MoveHistory parent() {
+        if(size==0) { throw new IllegalStateException("Empty history"); }
+        return parent;
+    }
+
+    /**
+     * Returns the last move or null if the history is empty.
+     */
+    Move lastMove() {
+        return move;
+    }
+
+    @Override
+    public Move get(int index) {
+        if(index<0 || index>=size) { throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size); }
+
+        MoveHistory node = this;
+        for(int i=size-1 ; i>index ; --i) { node = node.parent; }
+        return node.move;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(snapshot(), size, Object[].class);
+    }
+
+    private Move[] snapshot() {
+        Move[] moves = new Move[size];
+        MoveHistory node = this;
+        for(int i=size-1 ; i>=0 ; --i) {
+            moves[i] = node.move;
+            node = node.parent;
+        }
+        return moves;
+    }
+
+    @Override
+    public Iterator<Move> iterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<Move> listIterator(int index) {
+        return Collections.unmodifiableList(Arrays.asList(snapshot())).listIterator(index);
+    }
+}
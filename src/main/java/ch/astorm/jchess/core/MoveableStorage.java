@@ -0,0 +1,113 @@
+package ch.astorm.jchess.core;
+
+import ch.astorm.jchess.core.rules.DisplacementRule;
+import ch.astorm.jchess.core.rules.RuleManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Holds the {@link Moveable} entities of a {@link Position}.
+ */
+abstract class MoveableStorage {
+
+    /**
+     * Returns the {@link Moveable} at {@code location} or null.
+     */
+    abstract Moveable get(Coordinate location);
+
+    /**
+     * Puts {@code moveable} at {@code location}, removing it from its previous location
+     * if it was already present.
+     *
+     * @return The {@code Moveable} previously at {@code location} or null.
+     */
+    abstract Moveable put(Coordinate location, Moveable moveable);
+
+    /**
+     * Adds {@code moveable} at the empty {@code location}. Unlike {@link #put(ch.astorm.jchess.core.Coordinate, ch.astorm.jchess.core.Moveable)},
+     * the {@code moveable} must not be already present.
+     */
+    abstract void add(Coordinate location, Moveable moveable);
+
+    /**
+     * Removes the {@link Moveable} at {@code location}.
+     *
+     * @return The removed {@code Moveable} or null.
+     */
+    abstract Moveable remove(Coordinate location);
+
+    /**
+     * Returns the location of {@code moveable} or null.
+     */
+    abstract Coordinate getLocation(Moveable moveable);
+
+    /**
+     * Returns the location of the first {@link Moveable} matching {@code clazz} and
+     * {@code color} or null.
+     */
+    abstract Coordinate findLocation(Class<? extends Moveable> clazz, Color color);
+
+    /**
+     * Returns the number of {@link Moveable} entities.
+     */
+    abstract int size();
+
+    /**
+     * Returns the {@link Moveable} entities mapped by location.
+     * The returned map must not be modified.
+     */
+    abstract Map<Coordinate, Moveable> asMap();
+
+    /**
+     * Returns an independent copy of this storage.
+     */
+    abstract MoveableStorage copy();
+
+    /**
+     * Returns true if {@code location} can be reached by any {@link Moveable} of
+     * {@code color} in {@code position}.
+     *
+     * @see Position#canBeReached(ch.astorm.jchess.core.Coordinate, ch.astorm.jchess.core.Color)
+     */
+    boolean canBeReached(Position position, RuleManager ruleManager, Coordinate location, Color color) {
+        for(Entry<Coordinate, Moveable> entry : asMap().entrySet()) {
+            Moveable moveable = entry.getValue();
+            if(moveable.getColor()!=color) { continue; }
+
+            Coordinate currentLocation = entry.getKey();
+            DisplacementRule<Moveable> rule = ruleManager.getDisplacementRule(moveable);
+            if(rule.canAccess(position, currentLocation, moveable, location)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the locations of the entities of exactly {@code clazz} and {@code color} that
+     * can reach {@code location} in {@code position}, optionally restricted to an origin
+     * {@code column} and/or {@code row} (-1 for any).
+     *
+     * @see Position#getAttackers(ch.astorm.jchess.core.Coordinate, ch.astorm.jchess.core.Color, java.lang.Class, int, int)
+     */
+    List<Coordinate> attackersOf(Position position, RuleManager ruleManager, Coordinate location, Color color, Class<? extends Moveable> clazz, int column, int row) {
+        List<Coordinate> attackers = new ArrayList<>(2);
+        for(Entry<Coordinate, Moveable> entry : asMap().entrySet()) {
+            Moveable moveable = entry.getValue();
+            if(moveable.getClass()!=clazz || moveable.getColor()!=color) { continue; }
+
+            Coordinate currentLocation = entry.getKey();
+            if((column>=0 && currentLocation.getColumn()!=column) || (row>=0 && currentLocation.getRow()!=row)) { continue; }
+
+            DisplacementRule<Moveable> rule = ruleManager.getDisplacementRule(moveable);
+            if(rule.canAccess(position, currentLocation, moveable, location)) {
+                attackers.add(currentLocation);
+            }
+        }
+
+        return attackers;
+    }
+}
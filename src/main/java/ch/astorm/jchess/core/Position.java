@@ -2,7 +2,10 @@
 package ch.astorm.jchess.core;
 
 import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Pawn;
 import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+import ch.astorm.jchess.core.rules.Displacement;
 import ch.astorm.jchess.core.rules.DisplacementRule;
 import ch.astorm.jchess.core.rules.RuleManager;
 import java.util.ArrayList;
@@ -11,10 +14,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.stream.Collectors;
-import org.apache.commons.collections4.BidiMap;
-import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 
 /**
  * Represents a position on a {@link Board}.
@@ -22,31 +22,102 @@ import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 public class Position {
     private final Board board;
     private final RuleManager ruleManager;
-    private final BidiMap<Coordinate, Moveable> moveables;
+    private final MoveableStorage moveables;
     private final Map<Moveable, MoveableProperties> moveableProperties;
-    private final List<Move> moveHistory;
+    private MoveHistory moveHistory;
     private Color colorOnMove;
     private List<Move> availableLegalMoves;
     private Position previousPosition;
+    private long zobristKey;
+    private long fullZobristKey;
+    private boolean fullZobristKeyValid;
+    private int repetitionCount = -1;
+    private int halfMoveClock;
+    private int initialPly;
+    private Coordinate initialEnPassant;
 
     private static class MoveableProperties {
         int nbMoves;
     }
 
     /**
-     * Creates a new position.
+     * Holds the state required to revert a move applied in place.
+     *
+     * @see #makeMove(ch.astorm.jchess.core.Move)
+     * @see #unmakeMove(ch.astorm.jchess.core.Position.Undo)
+     */
+    public static final class Undo {
+        private final Move move;
+        private final Moveable captured;
+        private final Coordinate capturedLocation;
+        private final List<Move> legalMoves;
+        private final long zobristKey;
+        private final int halfMoveClock;
+
+        private Undo(Move move, Coordinate capturedLocation, List<Move> legalMoves, long zobristKey, int halfMoveClock) {
+            this.move = move;
+            this.captured = move.getCapturedEntity();
+            this.capturedLocation = capturedLocation;
+            this.legalMoves = legalMoves;
+            this.zobristKey = zobristKey;
+            this.halfMoveClock = halfMoveClock;
+        }
+
+        /**
+         * Returns the {@link Move} that has been applied.
+         */
+        public Move getMove() {
+            return move;
+        }
+    }
+
+    /**
+     * Internal representation of the {@link Moveable} entities of a {@code Position}.
+     */
+    public static enum Representation {
+        /**
+         * Hash-based representation that supports any {@link Board} and {@link Moveable}.
+         */
+        MAP,
+
+        /**
+         * Bitboard representation (one 64-bit mask per piece type and color).
+         * Only the standard chess pieces on a regular 8x8 {@link Board} are supported.
+         */
+        BITBOARD
+    }
+
+    /**
+     * Creates a new position with the {@link Representation#MAP} representation.
      *
      * @param board The {@link Board}.
      * @param ruleManager The {@link RuleManager}.
      * @param colorOnMove The color to move.
      */
     public Position(Board board, RuleManager ruleManager, Color colorOnMove) {
+        this(board, ruleManager, colorOnMove, Representation.MAP);
+    }
+
+    /**
+     * Creates a new position.
+     *
+     * @param board The {@link Board}.
+     * @param ruleManager The {@link RuleManager}.
+     * @param colorOnMove The color to move.
+     * @param representation The internal representation of the entities.
+     * @throws IllegalArgumentException If the {@code representation} does not support the {@code board}.
+     */
+    public Position(Board board, RuleManager ruleManager, Color colorOnMove, Representation representation) {
+        this(board, ruleManager, colorOnMove, representation==Representation.BITBOARD ? new BitboardStorage(board) : new MapStorage());
+    }
+
+    private Position(Board board, RuleManager ruleManager, Color colorOnMove, MoveableStorage moveables) {
         this.board = board;
         this.ruleManager = ruleManager;
         this.colorOnMove = colorOnMove;
-        this.moveables = new DualHashBidiMap<>();
+        this.moveables = moveables;
         this.moveableProperties = new HashMap<>();
-        this.moveHistory = new ArrayList<>(128);
+        this.moveHistory = MoveHistory.EMPTY;
     }
 
     /**
@@ -56,6 +127,13 @@ public class Position {
         return board;
     }
 
+    /**
+     * Returns the internal {@link Representation} of the entities.
+     */
+    public Representation getRepresentation() {
+        return moveables instanceof BitboardStorage ? Representation.BITBOARD : Representation.MAP;
+    }
+
     /**
      * Returns the {@link Color} that have the move.
      */
@@ -79,9 +157,13 @@ public class Position {
     private void computeLegalMoves() {
         if(availableLegalMoves!=null) { return; }
 
+        availableLegalMoves = LegalMoveGenerator.generate(this, moveables, ruleManager);
+        if(availableLegalMoves!=null) { return; }
+
         Color oppositeColor = colorOnMove.opposite();
         King king = null;
-        for(Entry<Coordinate, Moveable> entry : moveables.entrySet()) {
+        Map<Coordinate, Moveable> moveablesMap = moveables.asMap();
+        for(Entry<Coordinate, Moveable> entry : moveablesMap.entrySet()) {
             Moveable moveable = entry.getValue();
             if(moveable.getColor()==colorOnMove && moveable instanceof King) {
                 if(king!=null) { throw new IllegalStateException("Multiple "+colorOnMove+" king in position"); }
@@ -89,29 +171,34 @@ public class Position {
             }
         }
 
-        List<Move> legalMoves = new ArrayList<>(42);
-        for(Entry<Coordinate, Moveable> entry : moveables.entrySet()) {
+        List<Move> allMoves = new ArrayList<>(64);
+        for(Entry<Coordinate, Moveable> entry : moveablesMap.entrySet()) {
             Moveable moveable = entry.getValue();
             if(moveable.getColor()!=colorOnMove) { continue; }
 
             Coordinate location = entry.getKey();
             DisplacementRule<Moveable> rule = ruleManager.getDisplacementRule(moveable);
-            List<Move> allMoves = rule.getAvailableMoves(this, location, moveable);
-            if(king!=null) {
-                for(Move move : allMoves) {
-                    if(move.isPromotionNeeded()) { move.setPromotion(new Queen(colorOnMove)); }
-
-                    Position checkPosition = apply(move);
-                    Coordinate kingLocation = checkPosition.getLocation(king);
-                    if(!checkPosition.canBeReached(kingLocation, oppositeColor)) {
-                        legalMoves.add(move);
-                    }
-
-                    move.setPromotion(null);
-                }
-            } else {
-                legalMoves.addAll(allMoves);
+            allMoves.addAll(rule.getAvailableMoves(this, location, moveable));
+        }
+
+        if(king==null) {
+            availableLegalMoves = allMoves;
+            return;
+        }
+
+        //the moves are applied in place, hence the entities must not be iterated anymore
+        List<Move> legalMoves = new ArrayList<>(allMoves.size());
+        for(Move move : allMoves) {
+            if(move.isPromotionNeeded()) { move.setPromotion(new Queen(colorOnMove)); }
+
+            Undo undo = makeMove(move);
+            Coordinate kingLocation = moveables.getLocation(king);
+            if(!canBeReached(kingLocation, oppositeColor)) {
+                legalMoves.add(move);
             }
+            unmakeMove(undo);
+
+            move.setPromotion(null);
         }
 
         availableLegalMoves = legalMoves;
@@ -122,6 +209,8 @@ public class Position {
      */
     private void clearCache() {
         availableLegalMoves = null;
+        fullZobristKeyValid = false;
+        repetitionCount = -1;
     }
 
     /**
@@ -136,15 +225,16 @@ public class Position {
      * Returns the last move played that reaches this position.
      */
     public Move getLastMove() {
-        if(moveHistory.isEmpty()) { return null; }
-        return moveHistory.get(moveHistory.size()-1);
+        return moveHistory.lastMove();
     }
     
     /**
      * Returns the move history to reach this position.
+     * The history is shared with the previous positions, hence the returned list is
+     * unmodifiable and only the size and the last move are available in constant time.
      */
     public List<Move> getMoveHistory() {
-        return Collections.unmodifiableList(moveHistory);
+        return moveHistory;
     }
 
     /**
@@ -163,19 +253,23 @@ public class Position {
      * @see Move#apply(ch.astorm.jchess.core.Position)
      */
     public Position apply(Move move) {
-        Position p = new Position(board, ruleManager, colorOnMove.opposite());
-        p.moveables.putAll(moveables);
-        p.moveHistory.addAll(moveHistory);
+        Position p = new Position(board, ruleManager, colorOnMove.opposite(), moveables.copy());
+        p.moveHistory = moveHistory;
         p.previousPosition = this;
+        p.zobristKey = zobristKey;
+        p.halfMoveClock = halfMoveClock;
+        p.initialPly = initialPly;
         
+        //the properties are mutable, hence they must not be shared between positions
         for(Entry<Moveable, MoveableProperties> entry : moveableProperties.entrySet()) {
             Moveable m = entry.getKey();
-            MoveableProperties c = entry.getValue();
+            MoveableProperties c = new MoveableProperties();
+            c.nbMoves = entry.getValue().nbMoves;
             p.moveableProperties.put(m, c);
         }
 
         move.apply(p);
-        p.moveHistory.add(move);
+        p.moveHistory = moveHistory.append(move);
 
         //updates displacements count
         p.increaseDisplacementCount(move.getDisplacement().getMoveable(), 1);
@@ -184,6 +278,90 @@ public class Position {
         return p;
     }
 
+    /**
+     * Applies the move on this {@code Position} and switches the color to play.
+     * Unlike {@link #apply(ch.astorm.jchess.core.Move)}, no new position is created:
+     * the returned {@link Undo} must be given to {@link #unmakeMove(ch.astorm.jchess.core.Position.Undo)}
+     * to restore the position as it was before the move.
+     * <p>The {@code move} is not bound to this position (see {@link Move#getPositionAfter()})
+     * and the {@link #getPreviousPosition() previous position} is left untouched.</p>
+     *
+     * @param move The move to apply.
+     * @return The information to revert the move.
+     */
+    public Undo makeMove(Move move) {
+        move.checkPromotion();
+        long previousKey = zobristKey;
+        List<Move> previousLegalMoves = availableLegalMoves;
+
+        Coordinate capturedLocation = null;
+        Moveable captured = move.getCapturedEntity();
+        if(captured!=null) {
+            capturedLocation = moveables.getLocation(captured);
+            moveables.remove(capturedLocation);
+            zobristKey ^= Zobrist.piece(captured, capturedLocation);
+        }
+
+        Displacement displacement = move.getDisplacement();
+        Moveable moved = move.getPromotion()==null ? displacement.getMoveable() : move.getPromotion();
+        moveables.remove(displacement.getOldLocation());
+        moveables.put(displacement.getNewLocation(), moved);
+        zobristKey ^= Zobrist.piece(displacement.getMoveable(), displacement.getOldLocation()) ^
+                      Zobrist.piece(moved, displacement.getNewLocation());
+        increaseDisplacementCount(displacement.getMoveable(), 1);
+
+        List<Displacement> linkedDisplacements = move.getLinkedDisplacements();
+        if(linkedDisplacements!=null) {
+            for(Displacement disp : linkedDisplacements) {
+                moveables.put(disp.getNewLocation(), disp.getMoveable());
+                zobristKey ^= Zobrist.piece(disp.getMoveable(), disp.getOldLocation()) ^
+                              Zobrist.piece(disp.getMoveable(), disp.getNewLocation());
+                increaseDisplacementCount(disp.getMoveable(), 1);
+            }
+        }
+
+        Undo undo = new Undo(move, capturedLocation, previousLegalMoves, previousKey, halfMoveClock);
+        updateHalfMoveClock(move);
+        moveHistory = moveHistory.append(move);
+        colorOnMove = colorOnMove.opposite();
+        clearCache();
+        return undo;
+    }
+
+    /**
+     * Reverts a move applied with {@link #makeMove(ch.astorm.jchess.core.Move)}.
+     * The moves must be reverted in the reverse order they have been applied.
+     *
+     * @param undo The information returned by {@link #makeMove(ch.astorm.jchess.core.Move)}.
+     */
+    public void unmakeMove(Undo undo) {
+        Move move = undo.move;
+        if(getLastMove()!=move) { throw new IllegalStateException("Move "+move+" is not the last move of the position"); }
+
+        List<Displacement> linkedDisplacements = move.getLinkedDisplacements();
+        if(linkedDisplacements!=null) {
+            for(int i=linkedDisplacements.size()-1 ; i>=0 ; --i) {
+                Displacement disp = linkedDisplacements.get(i);
+                moveables.put(disp.getOldLocation(), disp.getMoveable());
+                increaseDisplacementCount(disp.getMoveable(), -1);
+            }
+        }
+
+        Displacement displacement = move.getDisplacement();
+        moveables.remove(displacement.getNewLocation());
+        moveables.put(displacement.getOldLocation(), displacement.getMoveable());
+        increaseDisplacementCount(displacement.getMoveable(), -1);
+
+        if(undo.captured!=null) { moveables.put(undo.capturedLocation, undo.captured); }
+
+        moveHistory = moveHistory.parent();
+        colorOnMove = colorOnMove.opposite();
+        clearCache();
+        availableLegalMoves = undo.legalMoves;
+        zobristKey = undo.zobristKey;
+        halfMoveClock = undo.halfMoveClock;
+    }
+
     /**
      * Returns true if the {@code location} can be reached by any {@link Moveable} entity
      * of the specified {@code color}.
@@ -195,18 +373,24 @@ public class Position {
      * @return True if there is at least one entity that can reach the location.
      */
     public boolean canBeReached(Coordinate location, Color color) {
-        for(Entry<Coordinate, Moveable> entry : moveables.entrySet()) {
-            Moveable moveable = entry.getValue();
-            if(moveable.getColor()!=color) { continue; }
-
-            Coordinate currentLocation = entry.getKey();
-            DisplacementRule<Moveable> rule = ruleManager.getDisplacementRule(moveable);
-            if(rule.canAccess(this, currentLocation, moveable, location)) {
-                return true;
-            }
-        }
+        return moveables.canBeReached(this, ruleManager, location, color);
+    }
 
-        return false;
+    /**
+     * Returns the locations of the {@link Moveable} entities of exactly {@code clazz} and
+     * {@code color} that can reach the {@code location}, without walking the whole board.
+     * As for {@link #canBeReached(ch.astorm.jchess.core.Coordinate, ch.astorm.jchess.core.Color)},
+     * the validity of the moves is not checked and the pawns only reach their diagonals.
+     *
+     * @param location The location.
+     * @param color The color.
+     * @param clazz The class of the entities.
+     * @param column The column of the entities or -1 for any.
+     * @param row The row of the entities or -1 for any.
+     * @return The locations of the entities that can reach {@code location}.
+     */
+    public List<Coordinate> getAttackers(Coordinate location, Color color, Class<? extends Moveable> clazz, int column, int row) {
+        return moveables.attackersOf(this, ruleManager, location, color, clazz, column, row);
     }
 
     /**
@@ -221,6 +405,19 @@ public class Position {
         return canBeReachedBy(location, currentLocation, moveable);
     }
 
+    /**
+     * Returns true if the {@code location} can be reached by the {@link Moveable} entity
+     * at {@code currentLocation}.
+     *
+     * @param location The location.
+     * @param currentLocation The location of the entity.
+     * @return True if there is an entity at {@code currentLocation} that can move to {@code location}.
+     */
+    public boolean canBeReachedFrom(Coordinate location, Coordinate currentLocation) {
+        Moveable moveable = moveables.get(currentLocation);
+        return moveable!=null && canBeReachedBy(location, currentLocation, moveable);
+    }
+
     private boolean canBeReachedBy(Coordinate location, Coordinate currentLocation, Moveable moveable) {
         DisplacementRule<Moveable> rule = ruleManager.getDisplacementRule(moveable);
         return rule.canAccess(this, currentLocation, moveable, location);
@@ -230,15 +427,14 @@ public class Position {
      * Returns all the {@link Moveable} entities in the position.
      */
     public Map<Coordinate, Moveable> getMoveables() {
-        return Collections.unmodifiableMap(moveables);
+        return Collections.unmodifiableMap(moveables.asMap());
     }
 
     /**
      * Returns all the {@link Moveable} entities of the specified {@code color}.
      */
     public List<Moveable> getMoveables(Color color) {
-        return moveables.entrySet().stream().
-                map(e -> e.getValue()).
+        return moveables.asMap().values().stream().
                 filter(m -> m.getColor()==color).
                 collect(Collectors.toList());
     }
@@ -278,6 +474,36 @@ public class Position {
         return moveables.get(location);
     }
 
+    /**
+     * Puts all the given {@code moveables} in this empty position. The array is indexed
+     * by {@code row*columns+column} and holds null for the empty squares.
+     * <p>Unlike {@link #put(ch.astorm.jchess.core.Coordinate, ch.astorm.jchess.core.Moveable)},
+     * the entities are not looked up in the position and the cache is cleared only once,
+     * hence this is meant to set up a whole position at once. The entities must all be
+     * distinct instances.</p>
+     *
+     * @param squares The entities indexed by square.
+     * @throws IllegalStateException If the position is not empty.
+     * @throws IllegalArgumentException If the size of the array does not match the board.
+     */
+    public void putAll(Moveable[] squares) {
+        if(moveables.size()!=0) { throw new IllegalStateException("The position is not empty"); }
+
+        int columns = board.getColumnsCount();
+        if(squares.length!=board.getRowsCount()*columns) { throw new IllegalArgumentException("Invalid number of squares: "+squares.length); }
+
+        boolean standard = board.getRowsCount()==Board.DEFAULT_ROWS && columns==Board.DEFAULT_COLUMNS;
+        for(int square=0 ; square<squares.length ; ++square) {
+            Moveable moveable = squares[square];
+            if(moveable==null) { continue; }
+
+            Coordinate location = standard ? Bitboards.COORDINATES[square] : new Coordinate(square/columns, square%columns);
+            moveables.add(location, moveable);
+            zobristKey ^= Zobrist.piece(moveable, location);
+        }
+        clearCache();
+    }
+
     /**
      * Puts the given {@code moveable} at the specified coordinates.
      *
@@ -313,11 +539,19 @@ public class Position {
     public Moveable put(Coordinate location, Moveable moveable) {
         checkCoordinate(location);
         clearCache();
-        if(moveable==null) { return moveables.remove(location); }
-        else {
-            moveables.removeValue(moveable);
-            return moveables.put(location, moveable);
+        if(moveable==null) {
+            Moveable removed = moveables.remove(location);
+            if(removed!=null) { zobristKey ^= Zobrist.piece(removed, location); }
+            return removed;
         }
+
+        Coordinate previousLocation = moveables.getLocation(moveable);
+        if(previousLocation!=null) { zobristKey ^= Zobrist.piece(moveable, previousLocation); }
+
+        Moveable removed = moveables.put(location, moveable);
+        if(removed!=null) { zobristKey ^= Zobrist.piece(removed, location); }
+        zobristKey ^= Zobrist.piece(moveable, location);
+        return removed;
     }
 
     private void checkCoordinate(Coordinate coordinate) {
@@ -333,7 +567,7 @@ public class Position {
      * @return The coordinate or null.
      */
     public Coordinate getLocation(Moveable moveable) {
-        return moveables.getKey(moveable);
+        return moveables.getLocation(moveable);
     }
 
     /**
@@ -345,13 +579,7 @@ public class Position {
      * @return The location or null if not present in the position.
      */
     public Coordinate findLocation(Class<? extends Moveable> clazz, Color color) {
-        for(Entry<Coordinate, Moveable> entry : moveables.entrySet()) {
-            Moveable moveable = entry.getValue();
-            if(clazz.isAssignableFrom(moveable.getClass()) && moveable.getColor()==color) {
-                return entry.getKey();
-            }
-        }
-        return null;
+        return moveables.findLocation(clazz, color);
     }
 
     /**
@@ -375,15 +603,195 @@ public class Position {
             moveableProperties.put(moveable, mp);
         }
         mp.nbMoves = mp.nbMoves+value;
+        clearCache();
+    }
+
+    /**
+     * Returns the 64-bit Zobrist key of this position.
+     * The key is built from the location of each entity, the color on move, the
+     * castling rights and the en-passant file (only if an en-passant capture is possible).
+     * Two positions with the same key are the same position in the sense of the
+     * repetition rule, regardless of the {@link Moveable} instances they hold.
+     * <p>The part related to the entities is maintained incrementally by
+     * {@link #put(ch.astorm.jchess.core.Coordinate, ch.astorm.jchess.core.Moveable)} and
+     * {@link Move#apply(ch.astorm.jchess.core.Position)}.</p>
+     */
+    public long getZobristKey() {
+        if(fullZobristKeyValid) { return fullZobristKey; }
+
+        long key = zobristKey;
+        if(colorOnMove==Color.BLACK) { key ^= Zobrist.BLACK_TO_MOVE; }
+        if(canCastle(Color.WHITE, true)) { key ^= Zobrist.CASTLING[Zobrist.WHITE_SMALL_CASTLING]; }
+        if(canCastle(Color.WHITE, false)) { key ^= Zobrist.CASTLING[Zobrist.WHITE_BIG_CASTLING]; }
+        if(canCastle(Color.BLACK, true)) { key ^= Zobrist.CASTLING[Zobrist.BLACK_SMALL_CASTLING]; }
+        if(canCastle(Color.BLACK, false)) { key ^= Zobrist.CASTLING[Zobrist.BLACK_BIG_CASTLING]; }
+
+        Coordinate enPassant = getEnPassantCapture();
+        if(enPassant!=null) { key ^= Zobrist.enPassant(enPassant.getColumn()); }
+
+        fullZobristKey = key;
+        fullZobristKeyValid = true;
+        return key;
+    }
+
+    /**
+     * Returns how many times this position has already been reached before in the
+     * chain of {@link #getPreviousPosition() previous positions}.
+     * <p>The positions are compared with their {@link #getZobristKey() Zobrist key}
+     * and the lookup stops at the last irreversible move (capture or pawn move) since
+     * no prior position can be reached again. The result is cached, hence each position
+     * only needs to find its last occurrence.</p>
+     */
+    public int getRepetitionCount() {
+        if(repetitionCount<0) {
+            int count = 0;
+            long key = getZobristKey();
+            Position candidate = this;
+            while(candidate.previousPosition!=null && !isIrreversible(candidate.getLastMove())) {
+                candidate = candidate.previousPosition;
+                if(candidate.colorOnMove==colorOnMove && candidate.getZobristKey()==key) {
+                    count = candidate.getRepetitionCount()+1;
+                    break;
+                }
+            }
+            repetitionCount = count;
+        }
+        return repetitionCount;
+    }
+
+    private static boolean isIrreversible(Move move) {
+        return move.getCapturedEntity()!=null || move.getDisplacement().getMoveable() instanceof Pawn;
+    }
+
+    /**
+     * Returns the number of half-moves (plies) played since the last capture or
+     * pawn move.
+     */
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    /**
+     * Sets the half-move clock of this position, for instance when the position is
+     * set up from a FEN string.
+     *
+     * @param halfMoveClock The number of half-moves since the last capture or pawn move.
+     * @throws IllegalArgumentException If {@code halfMoveClock} is negative.
+     */
+    public void setHalfMoveClock(int halfMoveClock) {
+        if(halfMoveClock<0) { throw new IllegalArgumentException("Invalid half-move clock: "+halfMoveClock); }
+        this.halfMoveClock = halfMoveClock;
+        clearCache();
+    }
+
+    /**
+     * Returns the number of the full move, starting at 1 and incremented after each
+     * move of {@link Color#BLACK}.
+     */
+    public int getFullMoveNumber() {
+        return 1+(initialPly+moveHistory.size())/2;
+    }
+
+    /**
+     * Sets the number of the full move of this position, for instance when the position
+     * is set up from a FEN string. The number of the next positions follows from it.
+     *
+     * @param fullMoveNumber The number of the full move.
+     * @throws IllegalArgumentException If {@code fullMoveNumber} is lower than 1.
+     */
+    public void setFullMoveNumber(int fullMoveNumber) {
+        if(fullMoveNumber<1) { throw new IllegalArgumentException("Invalid full move number: "+fullMoveNumber); }
+        initialPly = 2*(fullMoveNumber-1)+(colorOnMove==Color.BLACK ? 1 : 0)-moveHistory.size();
+    }
+
+    /**
+     * Returns the location of the pawn that has just moved two squares ahead before
+     * the first move of the {@link #getMoveHistory() history}, or null.
+     *
+     * @see #setInitialEnPassant(ch.astorm.jchess.core.Coordinate)
+     */
+    public Coordinate getInitialEnPassant() {
+        return initialEnPassant;
+    }
+
+    /**
+     * Sets the location of the pawn that has just moved two squares ahead and hence can
+     * be taken en-passant, for instance when the position is set up from a FEN string.
+     * <p>This location is only used while no move has been played, since the en-passant
+     * captures are otherwise determined by the {@link #getLastMove() last move}.</p>
+     *
+     * @param pawnLocation The location of the pawn or null.
+     */
+    public void setInitialEnPassant(Coordinate pawnLocation) {
+        if(pawnLocation!=null) { checkCoordinate(pawnLocation); }
+        this.initialEnPassant = pawnLocation;
+        clearCache();
+    }
+
+    /**
+     * Resets the half-move clock if {@code move} is a capture or a pawn move,
+     * otherwise increments it.
+     */
+    void updateHalfMoveClock(Move move) {
+        halfMoveClock = isIrreversible(move) ? 0 : halfMoveClock+1;
+    }
+
+    /**
+     * Returns true if the king of {@code color} has still the right to castle on
+     * the small ({@code kingSide}) or big side.
+     * The right is kept as long as the king and the corresponding rook have never moved.
+     * Note that this method does not check if the castling is possible in this position.
+     *
+     * @param color The color of the king.
+     * @param kingSide True for the small castling, false for the big castling.
+     * @return True if the king still has the right to castle on this side.
+     */
+    public boolean canCastle(Color color, boolean kingSide) {
+        Coordinate kingLocation = moveables.findLocation(King.class, color);
+        if(kingLocation==null || getDisplacementCount(moveables.get(kingLocation))>0) { return false; }
+
+        int rookColumn = kingSide ? board.getColumnsCount()-1 : 0;
+        Moveable rook = moveables.get(new Coordinate(kingLocation.getRow(), rookColumn));
+        return rook instanceof Rook && rook.getColor()==color && getDisplacementCount(rook)==0;
+    }
+
+    /**
+     * Returns the location of the pawn that has just moved two squares ahead and can be
+     * taken en-passant by a pawn next to it, or null.
+     * Note that this method does not check if the capture is legal.
+     */
+    public Coordinate getEnPassantCapture() {
+        Coordinate location;
+        Move lastMove = getLastMove();
+        if(lastMove==null) {
+            location = initialEnPassant;
+            if(location==null) { return null; }
+        } else {
+            Displacement displacement = lastMove.getDisplacement();
+            if(!(displacement.getMoveable() instanceof Pawn)) { return null; }
+
+            location = displacement.getNewLocation();
+            int rowDiff = location.getRow()-displacement.getOldLocation().getRow();
+            if(rowDiff!=2 && rowDiff!=-2) { return null; }
+        }
+
+        for(int columnIncr=-1 ; columnIncr<=1 ; columnIncr+=2) {
+            Coordinate neighbour = location.to(0, columnIncr);
+            if(!board.isValid(neighbour)) { continue; }
+
+            Moveable moveable = moveables.get(neighbour);
+            if(moveable instanceof Pawn && moveable.getColor()==colorOnMove) { return location; }
+        }
+        return null;
     }
 
+    /**
+     * Returns a hash code based on the entities only, consistently with
+     * {@link #equals(java.lang.Object)}.
+     */
     @Override
     public int hashCode() {
-        int hash = 7;
-        for(Entry<Coordinate, Moveable> entry : moveables.entrySet()) {
-            hash = 53 * hash * Objects.hashCode(entry.getValue());
-        }
-        return hash;
+        return Long.hashCode(zobristKey);
     }
 
     @Override
@@ -402,7 +810,7 @@ public class Position {
             return false;
         }
 
-        for(Entry<Coordinate, Moveable> entry : moveables.entrySet()) {
+        for(Entry<Coordinate, Moveable> entry : moveables.asMap().entrySet()) {
             Moveable moveable = entry.getValue();
             Moveable omoveable = other.get(entry.getKey());
             if(omoveable==null ||
@@ -0,0 +1,70 @@
+package ch.astorm.jchess.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys used to compute the Zobrist hash of a {@link Position}.
+ * The keys are generated from a fixed seed, hence they are stable from one run
+ * to another and can be persisted.
+ */
+final class Zobrist {
+    private static final long SEED = 0x6A63686573734BL;
+
+    static final int WHITE_SMALL_CASTLING = 0;
+    static final int WHITE_BIG_CASTLING = 1;
+    static final int BLACK_SMALL_CASTLING = 2;
+    static final int BLACK_BIG_CASTLING = 3;
+
+    static final long[][] PIECES = new long[2*Bitboards.NB_TYPES][64];
+    static final long[] CASTLING = new long[4];
+    static final long[] EN_PASSANT = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for(long[] squares : PIECES) {
+            for(int sq=0 ; sq<squares.length ; ++sq) {
+                squares[sq] = random.nextLong();
+            }
+        }
+        for(int i=0 ; i<CASTLING.length ; ++i) { CASTLING[i] = random.nextLong(); }
+        for(int i=0 ; i<EN_PASSANT.length ; ++i) { EN_PASSANT[i] = random.nextLong(); }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * Returns the key of {@code moveable} at {@code location}.
+     * Entities that are not standard chess pieces, or locations outside of a regular
+     * 8x8 board get a key derived from their class name and coordinates.
+     */
+    static long piece(Moveable moveable, Coordinate location) {
+        int row = location.getRow();
+        int column = location.getColumn();
+        int color = moveable.getColor().ordinal();
+        int type = Bitboards.type(moveable);
+        if(type>=0 && row<8 && column<8) {
+            return PIECES[color*Bitboards.NB_TYPES+type][row*8+column];
+        }
+
+        long hash = SEED;
+        hash = mix(hash ^ moveable.getClass().getName().hashCode());
+        hash = mix(hash ^ color);
+        hash = mix(hash ^ row);
+        return mix(hash ^ column);
+    }
+
+    /**
+     * Returns the en-passant key of the given {@code column}.
+     */
+    static long enPassant(int column) {
+        return column<8 ? EN_PASSANT[column] : mix(SEED ^ column);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
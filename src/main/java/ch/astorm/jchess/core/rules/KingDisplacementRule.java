@@ -51,10 +51,13 @@ public class KingDisplacementRule extends SimpleDisplacementRule<King> {
 
         Coordinate rookLocation = new Coordinate(kingRow, rookColumn);
         Moveable rook = position.get(rookLocation);
-        if(rook==null || !(rook instanceof Rook)) { return null; }
+        if(!(rook instanceof Rook) || rook.getColor()!=king.getColor()) { return null; }
         if(position.getDisplacementCount(rook)>0) { return null; }
 
+        //the king cannot castle out of check
         Color oppositeColor = king.getColor().opposite();
+        if(position.canBeReached(location, oppositeColor)) { return null; }
+
         for(int i=1 ; i<=3 ; ++i) {
             Coordinate inBetween = new Coordinate(kingRow, kingColumn+(direction*i));
             if(i<3 || direction<0) {
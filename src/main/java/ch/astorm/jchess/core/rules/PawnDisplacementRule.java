@@ -61,15 +61,21 @@ public class PawnDisplacementRule implements DisplacementRule<Pawn> {
 
     private Move getCaptureEnPassantMove(Position position, Coordinate location, Pawn pawn, Coordinate afterLocation, Coordinate captureLocation) {
         if(!position.getBoard().isValid(afterLocation)) { return null; }
+        if(position.get(afterLocation)!=null) { return null; }
 
         Moveable captured = position.get(captureLocation);
         if(captured!=null && captured.getClass()==Pawn.class && captured.getColor()==pawn.getColor().opposite()) {
-            List<Move> history = position.getMoveHistory();
-            if(history.isEmpty()) { return null; }
+            Move lastMove = position.getLastMove();
+            if(lastMove==null) {
+                if(!captureLocation.equals(position.getInitialEnPassant())) { return null; }
+                return new Move(position, new Displacement(pawn, location, afterLocation), captured);
+            }
 
-            Move lastMove = history.get(history.size()-1);
             if(lastMove.getDisplacement().getMoveable()!=captured) { return null; }
-            if(lastMove.getDisplacement().getOldLocation().getRow()!=1 && lastMove.getDisplacement().getOldLocation().getRow()!=Board.DEFAULT_ROWS-2) { return null; }
+            Displacement lastDisplacement = lastMove.getDisplacement();
+            int oldRow = lastDisplacement.getOldLocation().getRow();
+            if(oldRow!=1 && oldRow!=Board.DEFAULT_ROWS-2) { return null; }
+            if(Math.abs(lastDisplacement.getNewLocation().getRow()-oldRow)!=2) { return null; }
 
             return new Move(position, new Displacement(pawn, location, afterLocation), captured);
         }
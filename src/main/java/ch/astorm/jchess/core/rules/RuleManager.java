@@ -41,6 +41,12 @@ public class RuleManager {
      */
     public static final int FORCED_DRAW_MOVE_LIMIT = 75;
 
+    /**
+     * Limit of moves with no capture, nor pawn move where a draw can be claimed.
+     * https://en.wikipedia.org/wiki/Fifty-move_rule
+     */
+    public static final int CLAIMABLE_DRAW_MOVE_LIMIT = 50;
+
     /**
      * Limit of position repetitions after which a draw is forced.
      * https://en.wikipedia.org/wiki/Threefold_repetition#Fivefold_repetition_rule
@@ -90,43 +96,30 @@ public class RuleManager {
             return Status.DRAW;
         }
 
-        //3 times position repetition rule
-        Position checkPosition = position;
-        while(checkPosition!=null) {
-            int nbReached = 0;
-            Position previousPosition = checkPosition.getPreviousPosition();
-            while(previousPosition!=null) {
-                if(checkPosition.equals(previousPosition)) {
-                    ++nbReached;
-                    if(nbReached>=FORCED_DRAW_POSITION_REPETITION_LIMIT) { return Status.DRAW_REPETITION; }
-                }
-                
-                previousPosition = previousPosition.getPreviousPosition();
-            }
-
-            checkPosition = checkPosition.getPreviousPosition();
+        //position repetition rule
+        if(position.getRepetitionCount()>=FORCED_DRAW_POSITION_REPETITION_LIMIT) {
+            return Status.DRAW_REPETITION;
         }
-        
+
         //75 moves without capture nor pawn push rule
-        List<Move> history = position.getMoveHistory();
-        if(history.size()>=FORCED_DRAW_MOVE_LIMIT*2) {
-            boolean hasCapture = false;
-            for(int i=0 ; i<FORCED_DRAW_MOVE_LIMIT*2 ; ++i) {
-                Move move = history.get(history.size()-i-1);
-                if(move.getCapturedEntity()!=null || move.getDisplacement().getMoveable().getClass()==Pawn.class) {
-                    hasCapture = true;
-                    break;
-                }
-            }
-
-            if(!hasCapture) {
-                return Status.DRAW_NOCAPTURE;
-            }
+        if(position.getHalfMoveClock()>=FORCED_DRAW_MOVE_LIMIT*2) {
+            return Status.DRAW_NOCAPTURE;
         }
 
         return Status.NOT_FINISHED;
     }
 
+    /**
+     * Returns true if a draw can be claimed in the {@code position} because no capture
+     * nor any pawn move has been done in the last {@link #CLAIMABLE_DRAW_MOVE_LIMIT} moves.
+     *
+     * @param position The position.
+     * @return True if the fifty-move rule applies.
+     */
+    public boolean isNoCaptureDrawClaimable(Position position) {
+        return position.getHalfMoveClock()>=CLAIMABLE_DRAW_MOVE_LIMIT*2;
+    }
+
     private boolean isDeadPosition(Position position) {
         List<Moveable> whites = position.getMoveables(Color.WHITE).stream().filter(m -> m.getClass()!=King.class).collect(Collectors.toList());
         List<Moveable> blacks = position.getMoveables(Color.BLACK).stream().filter(m -> m.getClass()!=King.class).collect(Collectors.toList());
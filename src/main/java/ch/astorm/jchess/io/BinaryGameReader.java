@@ -0,0 +1,164 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Board;
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Coordinate;
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.Moveable;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.entities.Bishop;
+import ch.astorm.jchess.core.entities.Knight;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+import ch.astorm.jchess.core.rules.RuleManager;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads games written by {@link BinaryGameWriter}.
+ * <p>The moves are replayed from their origin and target squares with the displacement
+ * rule of the moved entity only (see {@link JChessGame#playTrusted(ch.astorm.jchess.core.Move)}),
+ * hence the game status is only computed once all the moves have been played.</p>
+ */
+public class BinaryGameReader extends DataInputStream {
+    private boolean headerRead;
+
+    /**
+     * Creates a new {@code BinaryGameReader} reading from the specified {@code input}.
+     */
+    public BinaryGameReader(InputStream input) {
+        super(input instanceof BufferedInputStream ? input : new BufferedInputStream(input));
+    }
+
+    /**
+     * Returns the next {@link JChessGame} of the stream. If there is no more game,
+     * then null will be returned.
+     *
+     * @return The next game or null.
+     * @throws IOException If an error occurs while reading or if the stream is invalid.
+     */
+    public JChessGame readGame() throws IOException {
+        if(!headerRead) {
+            byte[] magic = new byte[BinaryGameWriter.MAGIC.length];
+            int read = readNBytes(magic, 0, magic.length);
+            if(read==0) { return null; }
+            if(read<magic.length || !Arrays.equals(magic, BinaryGameWriter.MAGIC)) { throw new IOException("Invalid binary game stream"); }
+
+            int version = readUnsignedByte();
+            if(version!=BinaryGameWriter.VERSION) { throw new IOException("Unsupported version: "+version); }
+            headerRead = true;
+        }
+
+        int result = read();
+        if(result<0) { return null; }
+
+        JChessGame game = JChessGame.newGame();
+        Map<String, String> metadata = game.getMetadata();
+        int nbMetadata = readUnsignedShort();
+        for(int i=0 ; i<nbMetadata ; ++i) { metadata.put(readUTF(), readUTF()); }
+
+        int nbMoves = readUnsignedShort();
+        for(int i=0 ; i<nbMoves ; ++i) { game.playTrusted(decode(game.getPosition(), game.getRuleManager(), readUnsignedShort())); }
+        game.updateStatus();
+
+        switch(result) {
+            case BinaryGameWriter.RESULT_UNKNOWN: break;
+            case BinaryGameWriter.RESULT_WIN_WHITE: game.resign(Color.BLACK); break;
+            case BinaryGameWriter.RESULT_WIN_BLACK: game.resign(Color.WHITE); break;
+            case BinaryGameWriter.RESULT_DRAW: game.draw(); break;
+            default: throw new IOException("Invalid result: "+result);
+        }
+
+        return game;
+    }
+
+    /**
+     * Returns an {@code Iterator} over the remaining games of the stream.
+     * <p>If an {@link IOException} is thrown while reading, it is wrapped in an
+     * {@link UncheckedIOException}.</p>
+     *
+     * @return The iterator of the games.
+     * @see PGNReader#gameIterator()
+     */
+    public Iterator<JChessGame> gameIterator() {
+        return new Iterator<JChessGame>() {
+            private JChessGame nextGame;
+
+            @Override
+            public boolean hasNext() {
+                if(nextGame!=null) { return true; }
+                try { nextGame = readGame(); }
+                catch(IOException ioe) { throw new UncheckedIOException(ioe); }
+                return nextGame!=null;
+            }
+
+            @Override
+            public JChessGame next() {
+                if(!hasNext()) { throw new NoSuchElementException(); }
+                JChessGame game = nextGame;
+                nextGame = null;
+                return game;
+            }
+        };
+    }
+
+    /**
+     * Returns a {@code Stream} of the remaining games of the stream.
+     *
+     * @return The stream of the games.
+     * @see PGNReader#games()
+     */
+    public Stream<JChessGame> games() {
+        Spliterator<JChessGame> spliterator = Spliterators.spliteratorUnknownSize(gameIterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Returns the move of the 16 bits {@code code} in {@code position}.
+     *
+     * @see BinaryGameWriter#encode(ch.astorm.jchess.core.Move)
+     */
+    static Move decode(Position position, RuleManager ruleManager, int code) throws IOException {
+        Coordinate oldLocation = getLocation(code & 0x3F);
+        Coordinate newLocation = getLocation((code>>6) & 0x3F);
+        Moveable moveable = position.get(oldLocation);
+        if(moveable==null || moveable.getColor()!=position.getColorOnMove()) { throw new IOException("Invalid move: no entity to move in "+oldLocation); }
+
+        for(Move move : ruleManager.getDisplacementRule(moveable).getAvailableMoves(position, oldLocation, moveable)) {
+            if(!move.getDisplacement().getNewLocation().equals(newLocation)) { continue; }
+
+            int promotionCode = code>>12;
+            if(move.isPromotionNeeded()) { move.setPromotion(createPromotion(promotionCode, moveable.getColor())); }
+            else if(promotionCode!=0) { throw new IOException("Invalid move: unexpected promotion in "+oldLocation+newLocation); }
+            return move;
+        }
+
+        throw new IOException("Invalid move: "+oldLocation+newLocation);
+    }
+
+    private static Coordinate getLocation(int square) {
+        return new Coordinate(square/Board.DEFAULT_COLUMNS, square%Board.DEFAULT_COLUMNS);
+    }
+
+    private static Moveable createPromotion(int promotionCode, Color color) throws IOException {
+        switch(promotionCode) {
+            case 1: return new Queen(color);
+            case 2: return new Rook(color);
+            case 3: return new Bishop(color);
+            case 4: return new Knight(color);
+            default: throw new IOException("Invalid promotion: "+promotionCode);
+        }
+    }
+}
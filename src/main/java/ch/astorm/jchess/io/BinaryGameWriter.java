@@ -0,0 +1,130 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.core.Board;
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Coordinate;
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.Moveable;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.entities.Bishop;
+import ch.astorm.jchess.core.entities.Knight;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Writes games in a compact binary format, to be read by {@link BinaryGameReader}.
+ * <p>The stream starts with the {@code JCGA} magic bytes and the format version (1 byte),
+ * followed by the games:</p>
+ * <ul>
+ *  <li>the result (1 byte): 0 for an unknown result, 1 if white has won, 2 if black has won and 3 for a draw,</li>
+ *  <li>the number of metadata (2 bytes) followed by the keys and values (modified UTF-8, see {@link #writeUTF(java.lang.String)}),</li>
+ *  <li>the number of moves (2 bytes) followed by the moves (2 bytes each).</li>
+ * </ul>
+ * <p>A move is stored with the origin square in the bits 0-5, the target square in the bits 6-11
+ * (the square being {@code row*8+column}) and the promotion in the bits 12-15 (0 for none, 1 for
+ * a queen, 2 for a rook, 3 for a bishop and 4 for a knight). Hence the games are only replayed
+ * from these codes, without parsing nor checking the legality of the moves.</p>
+ * <p>Only the games played on a standard board from the initial position are supported.</p>
+ */
+public class BinaryGameWriter extends DataOutputStream {
+    /**
+     * Magic bytes at the start of the stream.
+     */
+    static final byte[] MAGIC = { 'J', 'C', 'G', 'A' };
+
+    /**
+     * Version of the format.
+     */
+    static final int VERSION = 1;
+
+    static final int RESULT_UNKNOWN = 0;
+    static final int RESULT_WIN_WHITE = 1;
+    static final int RESULT_WIN_BLACK = 2;
+    static final int RESULT_DRAW = 3;
+
+    private static final Position INITIAL_POSITION = JChessGame.newGame().getPosition();
+    private boolean headerWritten;
+
+    /**
+     * Creates a new {@code BinaryGameWriter} writing into the specified {@code output}.
+     */
+    public BinaryGameWriter(OutputStream output) {
+        super(output instanceof BufferedOutputStream ? output : new BufferedOutputStream(output));
+    }
+
+    /**
+     * Writes the specified {@code game}.
+     *
+     * @param game The game.
+     * @throws IOException If an error occurs while writing.
+     * @throws IllegalArgumentException If the game does not start from the initial position,
+     *                                  or if it has too many metadata or moves.
+     */
+    public void writeGame(JChessGame game) throws IOException {
+        List<Move> moves = game.getPosition().getMoveHistory();
+        Position initialPosition = moves.isEmpty() ? game.getPosition() : moves.iterator().next().getPositionBefore();
+        if(initialPosition.getColorOnMove()!=Color.WHITE || !INITIAL_POSITION.equals(initialPosition)) { throw new IllegalArgumentException("The game does not start from the initial position"); }
+
+        Board board = initialPosition.getBoard();
+        if(board.getRowsCount()!=Board.DEFAULT_ROWS || board.getColumnsCount()!=Board.DEFAULT_COLUMNS) { throw new IllegalArgumentException("Unsupported board size"); }
+
+        Map<String, String> metadata = game.getMetadata();
+        if(metadata.size()>0xFFFF) { throw new IllegalArgumentException("Too many metadata: "+metadata.size()); }
+        if(moves.size()>0xFFFF) { throw new IllegalArgumentException("Too many moves: "+moves.size()); }
+
+        if(!headerWritten) {
+            write(MAGIC);
+            writeByte(VERSION);
+            headerWritten = true;
+        }
+
+        writeByte(getResult(game.getStatus()));
+
+        writeShort(metadata.size());
+        for(Entry<String, String> entry : metadata.entrySet()) {
+            writeUTF(entry.getKey());
+            writeUTF(entry.getValue());
+        }
+
+        writeShort(moves.size());
+        for(Move move : moves) { writeShort(encode(move)); }
+    }
+
+    /**
+     * Returns the 16 bits code of {@code move}.
+     */
+    static int encode(Move move) {
+        Coordinate oldLocation = move.getDisplacement().getOldLocation();
+        Coordinate newLocation = move.getDisplacement().getNewLocation();
+        return getSquare(oldLocation) | getSquare(newLocation)<<6 | getPromotionCode(move.getPromotion())<<12;
+    }
+
+    private static int getSquare(Coordinate location) {
+        return location.getRow()*Board.DEFAULT_COLUMNS+location.getColumn();
+    }
+
+    private static int getPromotionCode(Moveable promotion) {
+        if(promotion==null) { return 0; }
+        else if(promotion instanceof Queen) { return 1; }
+        else if(promotion instanceof Rook) { return 2; }
+        else if(promotion instanceof Bishop) { return 3; }
+        else if(promotion instanceof Knight) { return 4; }
+        else { throw new IllegalArgumentException("Unsupported promotion: "+promotion.getClass().getSimpleName()); }
+    }
+
+    private static int getResult(Status status) {
+        if(status==Status.NOT_FINISHED) { return RESULT_UNKNOWN; }
+        else if(status==Status.WIN_WHITE) { return RESULT_WIN_WHITE; }
+        else if(status==Status.WIN_BLACK) { return RESULT_WIN_BLACK; }
+        else { return RESULT_DRAW; }
+    }
+}
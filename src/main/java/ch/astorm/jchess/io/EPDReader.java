@@ -0,0 +1,190 @@
+package ch.astorm.jchess.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads EPD (Extended Position Description) files.
+ * <p>Each line holds the first four fields of a FEN followed by operations made of an
+ * opcode and its operands, ended by a semicolon:</p>
+ * <pre>
+ * r1b1k2r/ppppnppp/2n2q2/2b5/3NP3/2P1B3/PP3PPP/RN1QKB1R w KQkq - bm Nxc6; id "test 1";
+ * </pre>
+ * <p>The move counters of a full FEN are also accepted after the four fields, as in the
+ * usual perft suites ({@code ... w KQkq - 0 1 ;D1 20 ;D2 400}). The empty lines are skipped.</p>
+ */
+public class EPDReader extends BufferedReader {
+    private int lineNumber;
+
+    /**
+     * Creates a new {@code EPDReader} from the specified {@code reader}.
+     */
+    public EPDReader(Reader reader) {
+        super(reader);
+    }
+
+    /**
+     * Returns the next {@link EPDRecord} in the EPD file. If there is no more record,
+     * then null will be returned.
+     *
+     * @return The next record or null.
+     * @throws IOException If an error occurs while reading or if the line is invalid.
+     */
+    public EPDRecord readRecord() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if(line==null) { return null; }
+            ++lineNumber;
+        } while(line.trim().isEmpty());
+
+        return parse(line, lineNumber);
+    }
+
+    /**
+     * Returns the {@link EPDRecord} of the specified {@code line}.
+     */
+    static EPDRecord parse(String line, int lineNumber) throws IOException {
+        StringBuilder fen = new StringBuilder(line.length());
+        int index = 0;
+        for(int i=0 ; i<4 ; ++i) {
+            index = skipSpaces(line, index);
+            int end = nextDelimiter(line, index);
+            if(end==index) { throw new IOException("Invalid EPD at line "+lineNumber+": missing field"); }
+            if(i>0) { fen.append(' '); }
+            fen.append(line, index, end);
+            index = end;
+        }
+
+        //optional move counters of a full FEN
+        String halfMoveClock = null;
+        String fullMoveNumber = null;
+        int counterStart = skipSpaces(line, index);
+        int counterEnd = nextDelimiter(line, counterStart);
+        if(isNumber(line, counterStart, counterEnd)) {
+            int numberStart = skipSpaces(line, counterEnd);
+            int numberEnd = nextDelimiter(line, numberStart);
+            if(isNumber(line, numberStart, numberEnd)) {
+                halfMoveClock = line.substring(counterStart, counterEnd);
+                fullMoveNumber = line.substring(numberStart, numberEnd);
+                index = numberEnd;
+            }
+        }
+
+        Map<String, List<String>> operations = new LinkedHashMap<>();
+        while(true) {
+            index = skipSpaces(line, index);
+            while(index<line.length() && line.charAt(index)==';') { index = skipSpaces(line, index+1); }
+            if(index>=line.length()) { break; }
+
+            int end = nextDelimiter(line, index);
+            String opcode = line.substring(index, end);
+            index = end;
+
+            List<String> operands = new ArrayList<>(2);
+            while(true) {
+                index = skipSpaces(line, index);
+                if(index>=line.length() || line.charAt(index)==';') { break; }
+
+                if(line.charAt(index)=='"') {
+                    int close = line.indexOf('"', index+1);
+                    if(close<0) { throw new IOException("Invalid EPD at line "+lineNumber+": unterminated string in "+opcode); }
+                    operands.add(line.substring(index+1, close));
+                    index = close+1;
+                } else {
+                    end = nextDelimiter(line, index);
+                    operands.add(line.substring(index, end));
+                    index = end;
+                }
+            }
+            operations.put(opcode, operands);
+        }
+
+        if(halfMoveClock==null) { halfMoveClock = getCounter(operations, "hmvc", "0"); }
+        if(fullMoveNumber==null) { fullMoveNumber = getCounter(operations, "fmvn", "1"); }
+        fen.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+
+        return new EPDRecord(fen.toString(), operations, lineNumber);
+    }
+
+    private static String getCounter(Map<String, List<String>> operations, String opcode, String defaultValue) {
+        List<String> operands = operations.get(opcode);
+        return operands!=null && operands.size()==1 ? operands.get(0) : defaultValue;
+    }
+
+    private static int skipSpaces(String line, int index) {
+        while(index<line.length() && Character.isWhitespace(line.charAt(index))) { ++index; }
+        return index;
+    }
+
+    private static int nextDelimiter(String line, int index) {
+        while(index<line.length()) {
+            char chr = line.charAt(index);
+            if(chr==';' || Character.isWhitespace(chr)) { break; }
+            ++index;
+        }
+        return index;
+    }
+
+    private static boolean isNumber(String line, int start, int end) {
+        if(start==end) { return false; }
+        for(int i=start ; i<end ; ++i) {
+            char chr = line.charAt(i);
+            if(chr<'0' || chr>'9') { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Returns an {@code Iterator} over the remaining records of the EPD file.
+     * <p>If an {@link IOException} is thrown while reading, it is wrapped in an
+     * {@link UncheckedIOException}.</p>
+     *
+     * @return The iterator of the records.
+     * @see PGNReader#gameIterator()
+     */
+    public Iterator<EPDRecord> recordIterator() {
+        return new Iterator<EPDRecord>() {
+            private EPDRecord nextRecord;
+
+            @Override
+            public boolean hasNext() {
+                if(nextRecord!=null) { return true; }
+                try { nextRecord = readRecord(); }
+                catch(IOException ioe) { throw new UncheckedIOException(ioe); }
+                return nextRecord!=null;
+            }
+
+            @Override
+            public EPDRecord next() {
+                if(!hasNext()) { throw new NoSuchElementException(); }
+                EPDRecord record = nextRecord;
+                nextRecord = null;
+                return record;
+            }
+        };
+    }
+
+    /**
+     * Returns a {@code Stream} of the remaining records of the EPD file.
+     *
+     * @return The stream of the records.
+     * @see PGNReader#games()
+     */
+    public Stream<EPDRecord> records() {
+        Spliterator<EPDRecord> spliterator = Spliterators.spliteratorUnknownSize(recordIterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+}
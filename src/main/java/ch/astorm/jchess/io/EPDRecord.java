@@ -0,0 +1,96 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A position of an EPD file with its operations, as read by {@link EPDReader}.
+ * <p>The operations are mapped by opcode (such as {@code bm}, {@code id} or {@code D1})
+ * in the order of the line and their operands are given without the quotes.</p>
+ */
+public class EPDRecord {
+    private final String fen;
+    private final Map<String, List<String>> operations;
+    private final int lineNumber;
+
+    EPDRecord(String fen, Map<String, List<String>> operations, int lineNumber) {
+        this.fen = fen;
+        this.operations = Collections.unmodifiableMap(operations);
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Returns the FEN of the position. The move counters are taken from the
+     * {@code hmvc} and {@code fmvn} operations if present.
+     */
+    public String getFEN() {
+        return fen;
+    }
+
+    /**
+     * Returns the line of the record in the EPD file (starting at 1).
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the operations of the record mapped by opcode.
+     */
+    public Map<String, List<String>> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns the operands of the specified {@code opcode} or null if the record
+     * has no such operation.
+     *
+     * @param opcode The opcode (eg 'bm').
+     * @return The operands or null.
+     */
+    public List<String> getOperation(String opcode) {
+        return operations.get(opcode);
+    }
+
+    /**
+     * Returns the identifier of the record (operation {@code id}) or null.
+     */
+    public String getId() {
+        List<String> id = operations.get("id");
+        return id!=null && !id.isEmpty() ? id.get(0) : null;
+    }
+
+    /**
+     * Creates a new {@link Position} of this record.
+     *
+     * @param representation The internal representation of the position.
+     * @return The position.
+     * @throws IllegalArgumentException If the FEN of the record is invalid.
+     * @see FEN#parsePosition(java.lang.CharSequence, ch.astorm.jchess.core.Position.Representation)
+     */
+    public Position toPosition(Representation representation) {
+        return FEN.parsePosition(fen, representation);
+    }
+
+    /**
+     * Creates a new {@link JChessGame} starting from the position of this record.
+     *
+     * @param representation The internal representation of the position.
+     * @return The game.
+     * @throws IllegalArgumentException If the FEN of the record is invalid.
+     * @see FEN#parseGame(java.lang.CharSequence, ch.astorm.jchess.core.Position.Representation)
+     */
+    public JChessGame toGame(Representation representation) {
+        return FEN.parseGame(fen, representation);
+    }
+
+    @Override
+    public String toString() {
+        String id = getId();
+        return id!=null ? id : "line "+lineNumber;
+    }
+}
@@ -0,0 +1,374 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Board;
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Coordinate;
+import ch.astorm.jchess.core.Moveable;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import ch.astorm.jchess.core.entities.Bishop;
+import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Knight;
+import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+import ch.astorm.jchess.core.rules.RuleManager;
+
+/**
+ * Reads and writes positions in the Forsyth-Edwards Notation (FEN).
+ * <p>A FEN string is made of six fields separated by a space: the placement of the
+ * entities, the color on move, the castling rights, the en-passant target square, the
+ * half-move clock and the full move number. The last two fields are optional when
+ * parsing (as in the EPD format) and default to 0 and 1.</p>
+ * <pre>
+ * JChessGame game = FEN.parseGame("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+ * String fen = FEN.format(game.getPosition());
+ * </pre>
+ * <p>The string is parsed in a single pass and the entities are put at once in the new
+ * {@link Position} (see {@link Position#putAll(ch.astorm.jchess.core.Moveable[])}). The
+ * castling rights are mapped onto the displacement count of the kings and rooks, and
+ * the en-passant square onto {@link Position#setInitialEnPassant(ch.astorm.jchess.core.Coordinate)}.</p>
+ * <p>The position must be legal: each color has exactly one king and the side not on
+ * move is not in check.</p>
+ * <p>Only the standard chess entities on a regular 8x8 {@link Board} are supported.</p>
+ */
+public class FEN {
+
+    /**
+     * FEN of the standard initial position.
+     */
+    public static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int SIZE = Board.DEFAULT_ROWS;
+    private static final Coordinate[] COORDINATES = new Coordinate[SIZE*SIZE];
+    static {
+        for(int square=0 ; square<COORDINATES.length ; ++square) {
+            COORDINATES[square] = new Coordinate(square/SIZE, square%SIZE);
+        }
+    }
+
+    private FEN() {}
+
+    /**
+     * Parses the specified {@code fen} into a new {@link Position} with the
+     * {@link Representation#MAP} representation.
+     *
+     * @param fen The FEN string.
+     * @return The position.
+     * @throws IllegalArgumentException If {@code fen} is invalid.
+     */
+    public static Position parsePosition(CharSequence fen) {
+        return parsePosition(fen, Representation.MAP);
+    }
+
+    /**
+     * Parses the specified {@code fen} into a new {@link Position}.
+     *
+     * @param fen The FEN string.
+     * @param representation The internal representation of the position.
+     * @return The position.
+     * @throws IllegalArgumentException If {@code fen} is invalid.
+     */
+    public static Position parsePosition(CharSequence fen, Representation representation) {
+        return parse(fen, new RuleManager(), representation);
+    }
+
+    /**
+     * Parses the specified {@code fen} into a new {@link JChessGame} with the
+     * {@link Representation#MAP} representation.
+     *
+     * @param fen The FEN string.
+     * @return The game, with its status computed from the position.
+     * @throws IllegalArgumentException If {@code fen} is invalid.
+     */
+    public static JChessGame parseGame(CharSequence fen) {
+        return parseGame(fen, Representation.MAP);
+    }
+
+    /**
+     * Parses the specified {@code fen} into a new {@link JChessGame}.
+     *
+     * @param fen The FEN string.
+     * @param representation The internal representation of the position.
+     * @return The game, with its status computed from the position.
+     * @throws IllegalArgumentException If {@code fen} is invalid.
+     */
+    public static JChessGame parseGame(CharSequence fen, Representation representation) {
+        RuleManager ruleManager = new RuleManager();
+        Position position = parse(fen, ruleManager, representation);
+        JChessGame game = new JChessGame(ruleManager, position, JChessGame.Status.NOT_FINISHED);
+        game.updateStatus();
+        return game;
+    }
+
+    private static Position parse(CharSequence fen, RuleManager ruleManager, Representation representation) {
+        int length = fen.length();
+        Moveable[] squares = new Moveable[SIZE*SIZE];
+        int whiteKing = -1;
+        int blackKing = -1;
+
+        //placement, from the 8th row to the 1st one
+        int index = 0;
+        int row = SIZE-1;
+        int column = 0;
+        while(true) {
+            if(index>=length) { throw invalid(fen, "missing color on move"); }
+            char chr = fen.charAt(index++);
+            if(chr==' ') {
+                if(row!=0 || column!=SIZE) { throw invalid(fen, "incomplete placement"); }
+                break;
+            } else if(chr=='/') {
+                if(column!=SIZE || row==0) { throw invalid(fen, "invalid row "+(row+1)); }
+                --row;
+                column = 0;
+            } else if(chr>='1' && chr<='8') {
+                column += chr-'0';
+                if(column>SIZE) { throw invalid(fen, "too many squares in row "+(row+1)); }
+            } else {
+                if(column>=SIZE) { throw invalid(fen, "too many squares in row "+(row+1)); }
+                Moveable moveable = createMoveable(chr);
+                if(moveable==null) { throw invalid(fen, "unknown entity '"+chr+"'"); }
+
+                int square = row*SIZE+column;
+                if(moveable instanceof King) {
+                    if(moveable.getColor()==Color.WHITE) {
+                        if(whiteKing>=0) { throw invalid(fen, "multiple white kings"); }
+                        whiteKing = square;
+                    } else {
+                        if(blackKing>=0) { throw invalid(fen, "multiple black kings"); }
+                        blackKing = square;
+                    }
+                } else if(moveable instanceof Pawn && (row==0 || row==SIZE-1)) {
+                    throw invalid(fen, "pawn on row "+(row+1));
+                }
+
+                squares[square] = moveable;
+                ++column;
+            }
+        }
+        if(whiteKing<0) { throw invalid(fen, "missing white king"); }
+        if(blackKing<0) { throw invalid(fen, "missing black king"); }
+
+        //color on move
+        Color colorOnMove;
+        char colorChr = index<length ? fen.charAt(index++) : ' ';
+        if(colorChr=='w') { colorOnMove = Color.WHITE; }
+        else if(colorChr=='b') { colorOnMove = Color.BLACK; }
+        else { throw invalid(fen, "invalid color on move"); }
+        index = skipSeparator(fen, index);
+
+        //castling rights
+        boolean whiteKingSide = false;
+        boolean whiteQueenSide = false;
+        boolean blackKingSide = false;
+        boolean blackQueenSide = false;
+        if(index<length && fen.charAt(index)=='-') {
+            ++index;
+        } else {
+            int start = index;
+            while(index<length && fen.charAt(index)!=' ') {
+                char chr = fen.charAt(index++);
+                if(chr=='K' && !whiteKingSide) { whiteKingSide = true; }
+                else if(chr=='Q' && !whiteQueenSide) { whiteQueenSide = true; }
+                else if(chr=='k' && !blackKingSide) { blackKingSide = true; }
+                else if(chr=='q' && !blackQueenSide) { blackQueenSide = true; }
+                else { throw invalid(fen, "invalid castling rights"); }
+            }
+            if(index==start) { throw invalid(fen, "missing castling rights"); }
+        }
+        index = skipSeparator(fen, index);
+
+        //en-passant target square
+        int enPassantSquare = -1;
+        if(index<length && fen.charAt(index)=='-') {
+            ++index;
+        } else {
+            if(index+1>=length) { throw invalid(fen, "missing en-passant square"); }
+            int epColumn = fen.charAt(index)-'a';
+            int epRow = fen.charAt(index+1)-'1';
+            index += 2;
+
+            int expectedRow = colorOnMove==Color.WHITE ? SIZE-3 : 2;
+            if(epColumn<0 || epColumn>=SIZE || epRow!=expectedRow) { throw invalid(fen, "invalid en-passant square"); }
+
+            //the pawn that has moved is one row behind the target square
+            enPassantSquare = (colorOnMove==Color.WHITE ? epRow-1 : epRow+1)*SIZE+epColumn;
+            Moveable pawn = squares[enPassantSquare];
+            if(!(pawn instanceof Pawn) || pawn.getColor()==colorOnMove || squares[epRow*SIZE+epColumn]!=null) {
+                throw invalid(fen, "no pawn to take en-passant");
+            }
+        }
+
+        //counters (optional)
+        int halfMoveClock = 0;
+        int fullMoveNumber = 1;
+        if(index<length) {
+            index = skipSeparator(fen, index);
+            int start = index;
+            while(index<length && fen.charAt(index)!=' ') { ++index; }
+            halfMoveClock = parseCounter(fen, start, index);
+
+            if(index<length) {
+                index = skipSeparator(fen, index);
+                start = index;
+                while(index<length && fen.charAt(index)!=' ') { ++index; }
+                fullMoveNumber = parseCounter(fen, start, index);
+                if(fullMoveNumber==0) { fullMoveNumber = 1; }
+            }
+
+            if(index<length) { throw invalid(fen, "unexpected content"); }
+        }
+
+        Position position = new Position(new Board(), ruleManager, colorOnMove, representation);
+        position.putAll(squares);
+        setCastlingRights(fen, position, squares, whiteKing, 0, whiteKingSide, whiteQueenSide);
+        setCastlingRights(fen, position, squares, blackKing, SIZE-1, blackKingSide, blackQueenSide);
+        if(enPassantSquare>=0) { position.setInitialEnPassant(COORDINATES[enPassantSquare]); }
+        position.setHalfMoveClock(halfMoveClock);
+        position.setFullMoveNumber(fullMoveNumber);
+
+        //the king of the side that has just moved cannot be left in check
+        int opponentKing = colorOnMove==Color.WHITE ? blackKing : whiteKing;
+        if(position.canBeReached(COORDINATES[opponentKing], colorOnMove)) { throw invalid(fen, "the side not on move is in check"); }
+        return position;
+    }
+
+    /**
+     * Maps the castling rights of a color onto the displacement count of its king and
+     * rooks: the entities that lost their right are considered as having moved.
+     */
+    private static void setCastlingRights(CharSequence fen, Position position, Moveable[] squares, int kingSquare, int row, boolean kingSide, boolean queenSide) {
+        Moveable king = squares[kingSquare];
+        if(!kingSide && !queenSide) {
+            position.increaseDisplacementCount(king, 1);
+            return;
+        }
+        if(kingSquare!=row*SIZE+4) { throw invalid(fen, "castling rights with a moved "+king.getColor()+" king"); }
+
+        Moveable kingSideRook = squares[row*SIZE+SIZE-1];
+        boolean hasKingSideRook = kingSideRook instanceof Rook && kingSideRook.getColor()==king.getColor();
+        if(kingSide && !hasKingSideRook) { throw invalid(fen, "small castling right without "+king.getColor()+" rook"); }
+        if(!kingSide && hasKingSideRook) { position.increaseDisplacementCount(kingSideRook, 1); }
+
+        Moveable queenSideRook = squares[row*SIZE];
+        boolean hasQueenSideRook = queenSideRook instanceof Rook && queenSideRook.getColor()==king.getColor();
+        if(queenSide && !hasQueenSideRook) { throw invalid(fen, "big castling right without "+king.getColor()+" rook"); }
+        if(!queenSide && hasQueenSideRook) { position.increaseDisplacementCount(queenSideRook, 1); }
+    }
+
+    private static int skipSeparator(CharSequence fen, int index) {
+        if(index>=fen.length() || fen.charAt(index)!=' ') { throw invalid(fen, "missing field"); }
+        return index+1;
+    }
+
+    private static int parseCounter(CharSequence fen, int start, int end) {
+        if(start==end || end-start>6) { throw invalid(fen, "invalid counter"); }
+
+        int value = 0;
+        for(int i=start ; i<end ; ++i) {
+            char chr = fen.charAt(i);
+            if(chr<'0' || chr>'9') { throw invalid(fen, "invalid counter"); }
+            value = value*10+(chr-'0');
+        }
+        return value;
+    }
+
+    private static Moveable createMoveable(char chr) {
+        Color color = Character.isUpperCase(chr) ? Color.WHITE : Color.BLACK;
+        switch(Character.toLowerCase(chr)) {
+            case 'p': return new Pawn(color);
+            case 'n': return new Knight(color);
+            case 'b': return new Bishop(color);
+            case 'r': return new Rook(color);
+            case 'q': return new Queen(color);
+            case 'k': return new King(color);
+            default: return null;
+        }
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN ("+reason+"): "+fen);
+    }
+
+    /**
+     * Returns the FEN of the specified {@code position}.
+     *
+     * @param position The position.
+     * @return The FEN string.
+     * @throws IllegalArgumentException If the position holds unsupported entities or is not on a regular board.
+     */
+    public static String format(Position position) {
+        StringBuilder builder = new StringBuilder(90);
+        format(position, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the FEN of the specified {@code position} to {@code builder}.
+     * <p>The en-passant square is only written if a pawn of the color on move stands
+     * next to the pawn that has just moved two squares (see {@link Position#getEnPassantCapture()}),
+     * so two positions with the same FEN are the same in the sense of the repetition rule.</p>
+     *
+     * @param position The position.
+     * @param builder The builder to append to.
+     * @throws IllegalArgumentException If the position holds unsupported entities or is not on a regular board.
+     */
+    public static void format(Position position, StringBuilder builder) {
+        Board board = position.getBoard();
+        if(board.getRowsCount()!=SIZE || board.getColumnsCount()!=SIZE) { throw new IllegalArgumentException("Unsupported board size"); }
+
+        for(int row=SIZE-1 ; row>=0 ; --row) {
+            int empty = 0;
+            for(int column=0 ; column<SIZE ; ++column) {
+                Moveable moveable = position.get(COORDINATES[row*SIZE+column]);
+                if(moveable==null) {
+                    ++empty;
+                    continue;
+                }
+
+                if(empty>0) {
+                    builder.append((char)('0'+empty));
+                    empty = 0;
+                }
+                builder.append(getSymbol(moveable));
+            }
+
+            if(empty>0) { builder.append((char)('0'+empty)); }
+            if(row>0) { builder.append('/'); }
+        }
+
+        builder.append(' ').append(position.getColorOnMove()==Color.WHITE ? 'w' : 'b').append(' ');
+
+        int start = builder.length();
+        if(position.canCastle(Color.WHITE, true)) { builder.append('K'); }
+        if(position.canCastle(Color.WHITE, false)) { builder.append('Q'); }
+        if(position.canCastle(Color.BLACK, true)) { builder.append('k'); }
+        if(position.canCastle(Color.BLACK, false)) { builder.append('q'); }
+        if(builder.length()==start) { builder.append('-'); }
+        builder.append(' ');
+
+        Coordinate enPassant = position.getEnPassantCapture();
+        if(enPassant==null) { builder.append('-'); }
+        else {
+            int targetRow = enPassant.getRow()+(position.getColorOnMove()==Color.WHITE ? 1 : -1);
+            builder.append((char)('a'+enPassant.getColumn())).append((char)('1'+targetRow));
+        }
+
+        builder.append(' ').append(position.getHalfMoveClock()).
+                append(' ').append(position.getFullMoveNumber());
+    }
+
+    private static char getSymbol(Moveable moveable) {
+        char symbol;
+        Class<?> clazz = moveable.getClass();
+        if(clazz==Pawn.class) { symbol = 'p'; }
+        else if(clazz==Knight.class) { symbol = 'n'; }
+        else if(clazz==Bishop.class) { symbol = 'b'; }
+        else if(clazz==Rook.class) { symbol = 'r'; }
+        else if(clazz==Queen.class) { symbol = 'q'; }
+        else if(clazz==King.class) { symbol = 'k'; }
+        else { throw new IllegalArgumentException("Unsupported entity: "+clazz.getSimpleName()); }
+        return moveable.getColor()==Color.WHITE ? Character.toUpperCase(symbol) : symbol;
+    }
+}
@@ -0,0 +1,192 @@
+package ch.astorm.jchess.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses a gzip stream on a separate thread.
+ * <p>The decompression is done by a {@link GZIPInputStream} (hence the concatenated
+ * members of a multi-member file are all read) on a daemon thread, which fills a bounded
+ * number of buffers ahead of the reader. This allows to overlap the decompression with
+ * the parsing and replay of the games:</p>
+ * <pre>
+ * try(PGNReader reader = new PGNReader(new InputStreamReader(new GZIPPipeInputStream(Files.newInputStream(path)), StandardCharsets.ISO_8859_1))) {
+ *     reader.games().forEach(game -> ...);
+ * }
+ * </pre>
+ * <p>The buffers are reused, so the memory used only depends on their size and number.
+ * An error of the decompression thread is thrown by the next read and by all the following
+ * ones, so a corrupt stream is never mistaken for its end. This class is not thread-safe.</p>
+ *
+ * @see MultiMemberGZIPOutputStream
+ */
+public class GZIPPipeInputStream extends InputStream {
+    /**
+     * Default size of the buffers (64KB).
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64*1024;
+
+    /**
+     * Default number of buffers decompressed ahead of the reader.
+     */
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private static final Chunk END = new Chunk(0);
+
+    private final InputStream compressed;
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<Chunk> free;
+    private final Thread inflater;
+    private volatile Exception failure;
+    private Chunk current;
+    private int position;
+    private boolean ended;
+    private boolean closed;
+
+    private static class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    /**
+     * Creates a new {@code GZIPPipeInputStream} with the default buffers.
+     *
+     * @param compressed The gzip stream.
+     */
+    public GZIPPipeInputStream(InputStream compressed) {
+        this(compressed, DEFAULT_BUFFER_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@code GZIPPipeInputStream}.
+     *
+     * @param compressed The gzip stream.
+     * @param bufferSize The size of the buffers in bytes.
+     * @param capacity The number of buffers decompressed ahead of the reader.
+     * @throws IllegalArgumentException If {@code bufferSize} or {@code capacity} is lower than 1.
+     */
+    public GZIPPipeInputStream(InputStream compressed, int bufferSize, int capacity) {
+        if(bufferSize<1) { throw new IllegalArgumentException("Invalid buffer size: "+bufferSize); }
+        if(capacity<1) { throw new IllegalArgumentException("Invalid capacity: "+capacity); }
+
+        this.compressed = compressed;
+        this.filled = new ArrayBlockingQueue<>(capacity+1);
+        this.free = new ArrayBlockingQueue<>(capacity+1);
+        for(int i=0 ; i<=capacity ; ++i) { free.add(new Chunk(bufferSize)); }
+
+        this.inflater = new Thread(() -> inflate(bufferSize), "jchess-gzip-inflater");
+        this.inflater.setDaemon(true);
+        this.inflater.start();
+    }
+
+    private void inflate(int bufferSize) {
+        try(GZIPInputStream input = new GZIPInputStream(compressed, bufferSize)) {
+            while(true) {
+                Chunk chunk = free.take();
+                int length = input.readNBytes(chunk.data, 0, chunk.data.length);
+                if(length==0) { break; }
+
+                chunk.length = length;
+                filled.put(chunk);
+            }
+        } catch(IOException | RuntimeException e) {
+            failure = e;
+        } catch(InterruptedException ie) {
+            return;
+        }
+
+        try { filled.put(END); }
+        catch(InterruptedException ie) { /* closed */ }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(!fill()) { return -1; }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if(length==0) { return 0; }
+        if(!fill()) { return -1; }
+
+        int count = Math.min(length, current.length-position);
+        System.arraycopy(current.data, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkState();
+        return current!=null ? current.length-position : 0;
+    }
+
+    private void checkState() throws IOException {
+        if(closed) { throw new IOException("Stream closed"); }
+        if(ended && failure!=null) { throw new IOException(failure.getMessage(), failure); }
+    }
+
+    /**
+     * Ensures that the current chunk has remaining bytes and returns false at the end
+     * of the stream.
+     */
+    private boolean fill() throws IOException {
+        checkState();
+        if(current!=null && position<current.length) { return true; }
+        if(ended) { return false; }
+
+        if(current!=null) {
+            free.add(current);
+            current = null;
+        }
+
+        Chunk chunk;
+        try { chunk = filled.take(); }
+        catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if(chunk==END) {
+            ended = true;
+            checkState();
+            return false;
+        }
+
+        current = chunk;
+        position = 0;
+        return true;
+    }
+
+    /**
+     * Stops the decompression and closes the compressed stream.
+     * <p>The decompression thread is waited for at most one second: if it is blocked
+     * reading a source that can be neither interrupted nor closed (such as a pipe), it
+     * is left behind. Since it is a daemon thread, it does not prevent the JVM from
+     * exiting and it ends with the next read of the source.</p>
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed) { return; }
+        closed = true;
+
+        //closing the compressed stream also unblocks the thread if it is reading
+        inflater.interrupt();
+        try { compressed.close(); }
+        finally {
+            try { inflater.join(CLOSE_TIMEOUT); }
+            catch(InterruptedException ie) { Thread.currentThread().interrupt(); }
+        }
+    }
+}
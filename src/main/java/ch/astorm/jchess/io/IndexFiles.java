@@ -0,0 +1,49 @@
+package ch.astorm.jchess.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the index files of {@link PGNDatabase} and {@link PositionIndex}.
+ */
+class IndexFiles {
+    /**
+     * Writes the content of an index file.
+     */
+    interface ContentWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private IndexFiles() {}
+
+    /**
+     * Writes the file {@code indexPath} with the specified {@code writer}.
+     * <p>The content is written in a temporary file of the same directory, which then
+     * replaces {@code indexPath} with an atomic move when supported by the file system.
+     * Hence an existing index is only replaced once the new one is complete and a failure
+     * leaves it untouched.</p>
+     *
+     * @param indexPath The index file.
+     * @param writer The writer of the content.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(Path indexPath, ContentWriter writer) throws IOException {
+        Path directory = indexPath.toAbsolutePath().getParent();
+        Path tempPath = Files.createTempFile(directory, indexPath.getFileName().toString(), ".tmp");
+        try {
+            try(FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer.write(channel);
+            }
+
+            try { Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING); }
+            catch(AtomicMoveNotSupportedException amnse) { Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING); }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads PGN files through a memory-mapped {@link FileChannel}.
+ * <p>Unlike {@link PGNReader}, the content is not decoded into lines: the tags and the
+ * moves are scanned directly in the bytes of the file. The metadata values are only
+ * decoded when they are requested and the game is only replayed by {@link #getGame()},
+ * hence the games can be filtered cheaply on their metadata:</p>
+ * <pre>
+ * try(MappedPGNReader reader = new MappedPGNReader(path)) {
+ *     while(reader.nextGame()) {
+ *         if("Carlsen, Magnus".equals(reader.getMetadata("White"))) {
+ *             JChessGame game = reader.getGame();
+ *         }
+ *     }
+ * }
+ * </pre>
+ * <p>The file is mapped by windows, so files bigger than 2GB are supported. Each window
+ * is mapped in its own {@link Arena}, which is closed when the window moves or when the
+ * reader is closed, hence the file is unmapped right away. The bytes are interpreted as
+ * ASCII, the {@code Charset} is only used to decode the metadata values. As for
+ * {@link PGNReader}, only the main line of the games is replayed.</p>
+ */
+public class MappedPGNReader implements Closeable {
+    static final int DEFAULT_WINDOW_SIZE = 64*1024*1024;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final long fileSize;
+    private final int windowSize;
+    private Arena arena;
+    private ByteBuffer buffer;
+    private long windowStart;
+    private int windowLimit;
+    private byte[] scratch = new byte[64];
+    private boolean trusted;
+
+    //bounds of the current game, relative to the window
+    private int position;
+    private int gameStart = -1;
+    private int tagsStart;
+    private int tagsEnd;
+    private int movesStart;
+    private int movesEnd;
+
+    /**
+     * Metadata of a game with its offset in the file.
+     */
+    public static class Header {
+        private final long offset;
+        private final Map<String, String> metadata;
+
+        Header(long offset, Map<String, String> metadata) {
+            this.offset = offset;
+            this.metadata = metadata;
+        }
+
+        /**
+         * Returns the offset of the game in the file, in bytes.
+         *
+         * @see MappedPGNReader#seek(long)
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns the metadata of the game.
+         */
+        public Map<String, String> getMetadata() {
+            return metadata;
+        }
+    }
+
+    /**
+     * Creates a new {@code MappedPGNReader} for the specified file, which metadata
+     * values are decoded in UTF-8.
+     *
+     * @param path The PGN file.
+     */
+    public MappedPGNReader(Path path) throws IOException {
+        this(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a new {@code MappedPGNReader} for the specified file.
+     *
+     * @param path The PGN file.
+     * @param charset The charset of the metadata values.
+     */
+    public MappedPGNReader(Path path, Charset charset) throws IOException {
+        this(path, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedPGNReader(Path path, Charset charset, int windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.charset = charset;
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        map(0, windowSize);
+    }
+
+    /**
+     * Returns true if the moves are trusted.
+     *
+     * @see PGNReader#setTrusted(boolean)
+     */
+    public boolean isTrusted() {
+        return trusted;
+    }
+
+    /**
+     * Defines if the moves are trusted (false by default).
+     *
+     * @param trusted True if the moves are trusted.
+     * @see PGNReader#setTrusted(boolean)
+     */
+    public void setTrusted(boolean trusted) {
+        this.trusted = trusted;
+    }
+
+    /**
+     * Moves to the next game of the file.
+     *
+     * @return True if there is a next game, false if EOF has been reached.
+     */
+    public boolean nextGame() throws IOException {
+        int size = windowSize;
+        while(!scanGame()) {
+            //the game does not end in the current window
+            if(gameStart==0) { size = (int)Math.min(Integer.MAX_VALUE, 2L*size); }
+            map(windowStart+gameStart, size);
+        }
+        return gameStart>=0;
+    }
+
+    /**
+     * Returns the offset in the file of the current game, in bytes.
+     */
+    public long getGameOffset() {
+        checkGame();
+        return windowStart+gameStart;
+    }
+
+    /**
+     * Returns the metadata value of the current game for the given {@code key}
+     * or null if there is no such metadata. Only this value is decoded.
+     *
+     * @param key The metadata key (eg 'White').
+     * @return The metadata value or null.
+     */
+    public String getMetadata(String key) {
+        checkGame();
+
+        int i = tagsStart;
+        while(i<tagsEnd) {
+            int lineEnd = lineEnd(i, tagsEnd);
+            int keyStart = keyStart(i, lineEnd);
+            if(keyStart>=0) {
+                int keyEnd = keyEnd(keyStart, lineEnd);
+                if(keyEnd-keyStart==key.length() && matches(keyStart, key)) { return readValue(keyEnd, lineEnd); }
+            }
+            i = lineEnd+1;
+        }
+        return null;
+    }
+
+    /**
+     * Returns all the metadata of the current game.
+     *
+     * @return The metadata.
+     */
+    public Map<String, String> getMetadata() {
+        checkGame();
+
+        Map<String, String> metadata = new HashMap<>();
+        int i = tagsStart;
+        while(i<tagsEnd) {
+            int lineEnd = lineEnd(i, tagsEnd);
+            int keyStart = keyStart(i, lineEnd);
+            if(keyStart>=0) {
+                int keyEnd = keyEnd(keyStart, lineEnd);
+                metadata.put(toString(keyStart, keyEnd, StandardCharsets.ISO_8859_1), readValue(keyEnd, lineEnd));
+            }
+            i = lineEnd+1;
+        }
+        return metadata;
+    }
+
+    /**
+     * Returns the metadata of the current game with its offset in the file.
+     *
+     * @return The header.
+     */
+    public Header getHeader() {
+        return new Header(getGameOffset(), getMetadata());
+    }
+
+    /**
+     * Returns a {@code Stream} of the headers of the remaining games. The moves are
+     * skipped without being decoded nor replayed, hence it is much faster than reading
+     * the games. A game can then be read with {@link #seek(long)}.
+     * <p>If an {@link IOException} is thrown while reading, it is wrapped in an
+     * {@link UncheckedIOException}.</p>
+     *
+     * @return The stream of the headers.
+     */
+    public Stream<Header> headers() {
+        Iterator<Header> iterator = new Iterator<Header>() {
+            private boolean hasNext;
+            private boolean scanned;
+
+            @Override
+            public boolean hasNext() {
+                if(!scanned) {
+                    try { hasNext = nextGame(); }
+                    catch(IOException ioe) { throw new UncheckedIOException(ioe); }
+                    scanned = true;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Header next() {
+                if(!hasNext()) { throw new NoSuchElementException(); }
+                scanned = false;
+                return getHeader();
+            }
+        };
+
+        Spliterator<Header> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Moves the reader to the given {@code offset}, so that the next game read is
+     * the one starting at this offset.
+     *
+     * @param offset The offset of a game (see {@link #getGameOffset()}).
+     */
+    public void seek(long offset) throws IOException {
+        if(offset<0 || offset>fileSize) { throw new IllegalArgumentException("Invalid offset: "+offset); }
+
+        gameStart = -1;
+        position = 0;
+        map(offset, windowSize);
+    }
+
+    /**
+     * Replays the current game.
+     *
+     * @return The game.
+     * @throws PGNReader.PGNReaderException If a move cannot be played.
+     * @throws IllegalStateException If the end game status is unknown.
+     */
+    public JChessGame getGame() {
+        checkGame();
+
+        List<String> moves = new ArrayList<>(128);
+        String result = PGNReader.parseMainLine(new PGNTokenizer(new WindowSequence(), movesStart, movesEnd), moves);
+        return PGNReader.createGame(getMetadata(), moves, result!=null ? result : "", trusted);
+    }
+
+    /**
+     * Returns the next game in the PGN file. If there is no more game, then null
+     * will be returned.
+     *
+     * @return The next game or null.
+     * @see PGNReader#readGame()
+     */
+    public JChessGame readGame() throws IOException {
+        return nextGame() ? getGame() : null;
+    }
+
+    /**
+     * Unmaps the current window and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        try {
+            if(arena!=null) { arena.close(); }
+            arena = null;
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void checkGame() {
+        if(gameStart<0) { throw new IllegalStateException("No current game"); }
+    }
+
+    private void map(long start, int size) throws IOException {
+        long length = Math.min(size, fileSize-start);
+
+        //the arena is shared since the reader may be used by several threads in turn
+        Arena windowArena = Arena.ofShared();
+        try { buffer = channel.map(MapMode.READ_ONLY, start, length, windowArena).asByteBuffer(); }
+        catch(IOException | RuntimeException e) {
+            windowArena.close();
+            throw e;
+        }
+
+        if(arena!=null) { arena.close(); }
+        arena = windowArena;
+        windowStart = start;
+        windowLimit = (int)length;
+        position -= gameStart>=0 ? gameStart : position;
+        gameStart = -1;
+    }
+
+    /**
+     * Scans the next game from {@link #position}. As for {@link PGNReader}, a game
+     * is made of the metadata lines followed by the moves lines and ends with the
+     * next metadata line or the next line starting with '1.'.
+     * Returns false if the end of the window has been reached before the end of the
+     * game, meaning that the window must be moved.
+     */
+    private boolean scanGame() {
+        boolean eof = windowStart+windowLimit==fileSize;
+        int start = position;
+        int tStart = -1, tEnd = -1;
+        int mStart = -1, mEnd = -1;
+
+        boolean incomplete = false;
+        boolean inComment = false;
+        int i = start;
+        while(i<windowLimit) {
+            int lineEnd = lineEnd(i, windowLimit);
+            if(lineEnd==windowLimit && !eof) {
+                incomplete = true;
+                break;
+            }
+
+            int first = skipWhitespaces(i, lineEnd);
+            if(first<lineEnd) {
+                byte c = buffer.get(first);
+                if(c=='[' && !inComment) {
+                    if(mStart>=0) { break; }
+                    if(tStart<0) { tStart = first; }
+                    tEnd = lineEnd;
+                } else {
+                    if(mStart>=0 && !inComment && c=='1' && first+1<lineEnd && buffer.get(first+1)=='.') { break; }
+                    if(mStart<0) { mStart = first; }
+                    mEnd = lineEnd;
+                    inComment = isInComment(first, lineEnd, inComment);
+                }
+            }
+            i = lineEnd+1;
+        }
+
+        if(incomplete || (i>=windowLimit && !eof)) {
+            //keep the start of the game to remap from it
+            gameStart = start;
+            return false;
+        }
+
+        position = Math.min(i, windowLimit);
+        if(mStart<0) {
+            gameStart = -1;
+            return true;
+        }
+
+        gameStart = tStart>=0 ? tStart : mStart;
+        tagsStart = tStart>=0 ? tStart : mStart;
+        tagsEnd = tStart>=0 ? tEnd : mStart;
+        movesStart = mStart;
+        movesEnd = mEnd;
+        return true;
+    }
+
+    /**
+     * Returns true if a comment between braces is still open at the end of the line.
+     */
+    private boolean isInComment(int from, int lineEnd, boolean inComment) {
+        for(int i=from ; i<lineEnd ; ++i) {
+            byte b = buffer.get(i);
+            if(inComment) { inComment = b!='}'; }
+            else if(b=='{') { inComment = true; }
+            else if(b==';') { break; }
+        }
+        return inComment;
+    }
+
+    private int lineEnd(int from, int limit) {
+        int i = from;
+        while(i<limit && buffer.get(i)!='\n') { ++i; }
+        return i;
+    }
+
+    private int skipWhitespaces(int from, int limit) {
+        int i = from;
+        while(i<limit && isWhitespace(buffer.get(i))) { ++i; }
+        return i;
+    }
+
+    /**
+     * Returns the start of the key of the metadata line or -1 if the line is blank.
+     */
+    private int keyStart(int from, int lineEnd) {
+        int first = skipWhitespaces(from, lineEnd);
+        return first<lineEnd ? skipWhitespaces(first+1, lineEnd) : -1;
+    }
+
+    private int keyEnd(int from, int limit) {
+        int i = from;
+        while(i<limit && !isWhitespace(buffer.get(i)) && buffer.get(i)!='"') { ++i; }
+        return i;
+    }
+
+    private boolean matches(int from, String key) {
+        for(int i=0 ; i<key.length() ; ++i) {
+            if(buffer.get(from+i)!=key.charAt(i)) { return false; }
+        }
+        return true;
+    }
+
+    private String readValue(int from, int lineEnd) {
+        int firstQuote = from;
+        while(firstQuote<lineEnd && buffer.get(firstQuote)!='"') { ++firstQuote; }
+        int lastQuote = firstQuote+1;
+        while(lastQuote<lineEnd && buffer.get(lastQuote)!='"') { ++lastQuote; }
+        return firstQuote<lineEnd ? toString(firstQuote+1, lastQuote, charset) : "";
+    }
+
+    private String toString(int from, int to, Charset cs) {
+        int length = to-from;
+        if(scratch.length<length) { scratch = new byte[Math.max(length, 2*scratch.length)]; }
+        buffer.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, cs);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b==' ' || b=='\n' || b=='\r' || b=='\t';
+    }
+
+    /**
+     * View of the bytes of the window as ASCII characters.
+     */
+    private class WindowSequence implements CharSequence {
+        @Override
+        public int length() {
+            return windowLimit;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char)(buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return MappedPGNReader.this.toString(start, end, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
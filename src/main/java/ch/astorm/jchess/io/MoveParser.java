@@ -3,11 +3,13 @@ package ch.astorm.jchess.io;
 
 import ch.astorm.jchess.JChessGame;
 import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.core.Board;
 import ch.astorm.jchess.core.Color;
 import ch.astorm.jchess.core.Coordinate;
 import ch.astorm.jchess.core.Move;
 import ch.astorm.jchess.core.Moveable;
 import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Undo;
 import ch.astorm.jchess.core.entities.Bishop;
 import ch.astorm.jchess.core.entities.King;
 import ch.astorm.jchess.core.entities.Knight;
@@ -15,10 +17,12 @@ import ch.astorm.jchess.core.entities.Pawn;
 import ch.astorm.jchess.core.entities.Queen;
 import ch.astorm.jchess.core.entities.Rook;
 import ch.astorm.jchess.core.rules.Displacement;
-import java.util.Collection;
+import ch.astorm.jchess.core.rules.DisplacementRule;
+import ch.astorm.jchess.core.rules.RuleManager;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 import org.apache.commons.collections4.BidiMap;
 import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 
@@ -43,6 +47,11 @@ public class MoveParser {
      */
     public static final char CHECK = '+';
 
+    /**
+     * Checkmate sign.
+     */
+    public static final char CHECKMATE = '#';
+
     /**
      * Small castling.
      */
@@ -64,6 +73,15 @@ public class MoveParser {
         put('R', Rook.class);
     }};
 
+    /**
+     * Factories of the entities a pawn can be promoted to.
+     */
+    private static final Map<Class<? extends Moveable>, Function<Color, Moveable>> PROMOTION_FACTORIES = Map.of(
+        Queen.class, Queen::new,
+        Rook.class, Rook::new,
+        Bishop.class, Bishop::new,
+        Knight.class, Knight::new);
+
     public MoveParser(JChessGame game) {
         this.game = game;
     }
@@ -95,7 +113,26 @@ public class MoveParser {
      * @throws InvalidMoveException If {@code moveStr} is invalid.
      */
     public Move getMove(String moveStr) {
-        Move move = getMoveWithoutPromotion(moveStr);
+        return promote(getMoveWithoutPromotion(moveStr), moveStr);
+    }
+
+    /**
+     * Returns the corresponding {@code str} move in the {@link JChessGame} without
+     * computing the legal moves of the position.
+     * <p>The move is searched among the pseudo-legal moves of the entities that can
+     * reach the target location, hence this method must only be used for moves that are
+     * known to be legal (for instance games exported by this API). The legality is only
+     * checked when more than one entity can reach the target (eg when one is pinned).</p>
+     *
+     * @param moveStr The algebraic chess notation move (such as 'e4' or 'Kb3').
+     * @return The move.
+     * @throws InvalidMoveException If no entity can make the move.
+     */
+    public Move getTrustedMove(String moveStr) {
+        return promote(getPseudoLegalMove(moveStr), moveStr);
+    }
+
+    private Move promote(Move move, String moveStr) {
         int equals = moveStr.indexOf(PROMOTION_SEPARATOR);
         if(equals<0) { return move; }
         if(move.getDisplacement().getMoveable().getClass()!=Pawn.class) { throw new InvalidMoveException(moveStr+" is not a pawn move", moveStr); }
@@ -105,28 +142,48 @@ public class MoveParser {
         if(pieceClass==Pawn.class) { throw new InvalidMoveException(moveStr+" promotes to a pawn", moveStr); }
         if(pieceClass==King.class) { throw new InvalidMoveException(moveStr+" promotes to a King", moveStr); }
 
-        try {
-            Moveable promotion = pieceClass.getConstructor(Color.class).newInstance(move.getDisplacement().getMoveable().getColor());
-            move.setPromotion(promotion);
-        } catch(Exception e) {
-            throw new RuntimeException(e);
+        Function<Color, Moveable> factory = PROMOTION_FACTORIES.get(pieceClass);
+        if(factory==null) { throw new InvalidMoveException(moveStr+" promotes to an unknown entity", moveStr); }
+        move.setPromotion(factory.apply(move.getDisplacement().getMoveable().getColor()));
+        return move;
+    }
+
+    /**
+     * Algebraic notation of a move, once parsed.
+     */
+    private static class ParsedMove {
+        private int castlingColumn = -1;
+        private Class<? extends Moveable> pieceClass;
+        private Coordinate target;
+        private boolean isCapture;
+        private char ambigousMoveCharFilter;
+
+        boolean isCastling() {
+            return castlingColumn>=0;
+        }
+
+        /**
+         * Returns the column given to resolve an ambiguous move or -1.
+         */
+        int getOriginColumn() {
+            return ambigousMoveCharFilter>='a' && ambigousMoveCharFilter<='h' ? ambigousMoveCharFilter-'a' : -1;
         }
 
-        return move;
+        /**
+         * Returns the row given to resolve an ambiguous move or -1.
+         */
+        int getOriginRow() {
+            return ambigousMoveCharFilter>='1' && ambigousMoveCharFilter<='8' ? ambigousMoveCharFilter-'1' : -1;
+        }
     }
 
-    private Move getMoveWithoutPromotion(String moveStr) {
-        Color colorToMove = game.getColorOnMove();
-        List<Move> availableMoves = game.getAvailableMoves();
-        if(moveStr.startsWith(SMALL_CASTLING) || moveStr.startsWith(BIG_CASTLING)) {
-            String cleanedMove = moveStr.replace(""+CHECK, "");
-            Optional<Move> castleMove = availableMoves.stream().
-                    filter(m -> m.getDisplacement().getMoveable().getColor()==colorToMove).
-                    filter(m -> m.getDisplacement().getMoveable().getClass()==King.class).
-                    filter(m -> m.getLinkedDisplacements()!=null && m.getLinkedDisplacements().size()==1).
-                    filter(m -> cleanedMove.equals(SMALL_CASTLING) ? m.getDisplacement().getNewLocation().getColumn()==6 : m.getDisplacement().getNewLocation().getColumn()==2).
-                    findFirst();
-            return castleMove.orElseThrow(() -> new InvalidMoveException(moveStr+" is not a legal move", moveStr));
+    private ParsedMove parse(String moveStr) {
+        ParsedMove parsed = new ParsedMove();
+        if(moveStr.startsWith(SMALL_CASTLING) || moveStr.startsWith("0-0")) {
+            //the castlings are also written with zeros (eg '0-0-0') in some files
+            String cleanedMove = moveStr.replace('0', 'O').replace(""+CHECK, "").replace(""+CHECKMATE, "");
+            parsed.castlingColumn = cleanedMove.equals(SMALL_CASTLING) ? 6 : 2;
+            return parsed;
         }
 
         int charPosition = 0;
@@ -169,100 +226,266 @@ public class MoveParser {
         Coordinate target = new Coordinate(rowIndex, columnIndex);
         if(!game.getPosition().getBoard().isValid(target)) { throw new IllegalArgumentException("Invalid move: "+moveStr); }
 
-        boolean filterCapture = isCapture;
-        List<Move> possibleMoves = availableMoves.stream().
-                filter(m -> m.getDisplacement().getMoveable().getClass()==pieceClass).
-                filter(m -> m.getDisplacement().getNewLocation().equals(target)).
-                filter(m -> filterCapture ? m.getCapturedEntity()!=null : /*m.getCapturedEntity()==null*/true). /* actually, some times the PGN doesn't explicitely capture */
-                collect(Collectors.toList());
-        if(possibleMoves.isEmpty()) { throw new InvalidMoveException(moveStr+" is not a legal move ("+columnIndex+","+rowIndex+", capture="+filterCapture+", "+pieceClass.getSimpleName()+")", moveStr); }
-        if(possibleMoves.size()==1) { return possibleMoves.get(0); }
-        if(possibleMoves.size()>1 && ambigousMoveCharFilter==0) { throw new InvalidMoveException(moveStr+" is ambiguous ("+possibleMoves.size()+" possible moves for "+colorToMove+")", moveStr); }
-
-        int ambigousRowIndexFilter;
-        int ambigousColumnIndexFilter;
-        if(ambigousMoveCharFilter>='a' && ambigousMoveCharFilter<='h') {
-            ambigousRowIndexFilter = -1;
-            ambigousColumnIndexFilter = ambigousMoveCharFilter-'a';
+        parsed.pieceClass = pieceClass;
+        parsed.target = target;
+        parsed.isCapture = isCapture;
+        parsed.ambigousMoveCharFilter = ambigousMoveCharFilter;
+        return parsed;
+    }
+
+    private Move getMoveWithoutPromotion(String moveStr) {
+        Position position = game.getPosition();
+        ParsedMove parsed = parse(moveStr);
+        List<Move> possibleMoves = getCandidateMoves(position, parsed);
+
+        //the moves are applied in place, hence the entities must not be iterated anymore
+        possibleMoves.removeIf(m -> !isLegal(position, m));
+        return select(possibleMoves, parsed, moveStr);
+    }
+
+    private Move getPseudoLegalMove(String moveStr) {
+        Position position = game.getPosition();
+        ParsedMove parsed = parse(moveStr);
+        List<Move> possibleMoves = getCandidateMoves(position, parsed);
+        if(possibleMoves.size()>1) { possibleMoves.removeIf(m -> !isLegal(position, m)); }
+        return select(possibleMoves, parsed, moveStr);
+    }
+
+    private Move select(List<Move> possibleMoves, ParsedMove parsed, String moveStr) {
+        if(possibleMoves.isEmpty()) {
+            if(parsed.isCastling()) { throw new InvalidMoveException(moveStr+" is not a legal move", moveStr); }
+            Coordinate target = parsed.target;
+            throw new InvalidMoveException(moveStr+" is not a legal move ("+target.getColumn()+","+target.getRow()+", capture="+parsed.isCapture+", "+parsed.pieceClass.getSimpleName()+")", moveStr);
+        }
+        if(possibleMoves.size()>1) { throw new InvalidMoveException(moveStr+" is ambiguous ("+possibleMoves.size()+" possible moves for "+game.getColorOnMove()+")", moveStr); }
+        return possibleMoves.get(0);
+    }
+
+    /**
+     * Returns the pseudo-legal moves matching {@code parsed}. Only the attackers of the
+     * target location of the parsed type are considered (see {@link Position#getAttackers(ch.astorm.jchess.core.Coordinate, ch.astorm.jchess.core.Color, java.lang.Class, int, int)}),
+     * so neither the legal moves nor the entities of the whole position are computed.
+     */
+    private List<Move> getCandidateMoves(Position position, ParsedMove parsed) {
+        RuleManager ruleManager = game.getRuleManager();
+        Color colorToMove = position.getColorOnMove();
+        List<Move> possibleMoves = new ArrayList<>(2);
+        if(parsed.isCastling()) {
+            Coordinate kingLocation = position.findLocation(King.class, colorToMove);
+            if(kingLocation!=null) {
+                Moveable king = position.get(kingLocation);
+                for(Move move : ruleManager.getDisplacementRule(king).getAvailableMoves(position, kingLocation, king)) {
+                    List<Displacement> linked = move.getLinkedDisplacements();
+                    if(linked!=null && linked.size()==1 && move.getDisplacement().getNewLocation().getColumn()==parsed.castlingColumn) {
+                        possibleMoves.add(move);
+                        break;
+                    }
+                }
+            }
+            return possibleMoves;
+        }
+
+        Coordinate target = parsed.target;
+        int column = parsed.getOriginColumn();
+        int row = parsed.getOriginRow();
+        if(parsed.pieceClass==Pawn.class) {
+            //the pawns only reach their diagonals, hence the push is looked for on the column
+            for(Coordinate location : position.getAttackers(target, colorToMove, Pawn.class, column, row)) { addPawnMoves(position, location, target, possibleMoves); }
+            if(!parsed.isCapture && (column<0 || column==target.getColumn())) {
+                Coordinate location = getPushOrigin(position, target, colorToMove);
+                if(location!=null && (row<0 || location.getRow()==row)) { addPawnMoves(position, location, target, possibleMoves); }
+            }
         } else {
-            ambigousRowIndexFilter = ambigousMoveCharFilter-'1';
-            ambigousColumnIndexFilter = -1;
+            for(Coordinate location : position.getAttackers(target, colorToMove, parsed.pieceClass, column, row)) {
+                possibleMoves.add(new Move(position, new Displacement(position.get(location), location, target), position.get(target)));
+            }
         }
 
-        List<Move> filteredMoves = possibleMoves.stream().
-                filter(m -> ambigousColumnIndexFilter==-1 || m.getDisplacement().getOldLocation().getColumn()==ambigousColumnIndexFilter).
-                filter(m -> ambigousRowIndexFilter==-1 || m.getDisplacement().getOldLocation().getRow()==ambigousRowIndexFilter).
-                collect(Collectors.toList());
-        if(filteredMoves.isEmpty()) { throw new InvalidMoveException(moveStr+" does not exist (filtered out of "+possibleMoves.size()+" possible moves)", moveStr); }
-        if(filteredMoves.size()>1) { throw new InvalidMoveException(moveStr+" is [still] ambiguous ("+possibleMoves.size()+" possible moves for "+colorToMove+")", moveStr); }
-        return filteredMoves.get(0);
+        //some times the PGN doesn't explicitely capture, hence only the captures are filtered
+        if(parsed.isCapture) { possibleMoves.removeIf(m -> m.getCapturedEntity()==null); }
+        return possibleMoves;
+    }
+
+    /**
+     * Adds the moves of the pawn at {@code location} to {@code target}. The pawn rule
+     * gives the pushes, the captures (en passant included) and the promotions.
+     */
+    private void addPawnMoves(Position position, Coordinate location, Coordinate target, List<Move> possibleMoves) {
+        Moveable pawn = position.get(location);
+        DisplacementRule<Moveable> rule = game.getRuleManager().getDisplacementRule(pawn);
+        for(Move move : rule.getAvailableMoves(position, location, pawn)) {
+            if(move.getDisplacement().getNewLocation().equals(target)) { possibleMoves.add(move); }
+        }
+    }
+
+    /**
+     * Returns the location of the pawn of {@code color} that can be pushed to {@code target}
+     * (one or two rows behind it) or null.
+     */
+    private static Coordinate getPushOrigin(Position position, Coordinate target, Color color) {
+        Board board = position.getBoard();
+        int direction = color==Color.WHITE ? -1 : 1;
+        Coordinate location = target.to(direction, 0);
+        if(!board.isValid(location)) { return null; }
+
+        Moveable moveable = position.get(location);
+        if(moveable==null) {
+            location = location.to(direction, 0);
+            if(!board.isValid(location)) { return null; }
+            moveable = position.get(location);
+        }
+        return moveable!=null && moveable.getClass()==Pawn.class && moveable.getColor()==color ? location : null;
+    }
+
+    private static boolean isLegal(Position position, Move move) {
+        Color color = move.getDisplacement().getMoveable().getColor();
+        if(move.isPromotionNeeded()) { move.setPromotion(new Queen(color)); }
+
+        Undo undo = position.makeMove(move);
+        Coordinate kingLocation = position.findLocation(King.class, color);
+        boolean legal = kingLocation==null || !position.canBeReached(kingLocation, color.opposite());
+        position.unmakeMove(undo);
+
+        move.setPromotion(null);
+        return legal;
     }
 
     /**
      * Returns the {@code move} in algebraic notation.
+     *
+     * @see #appendMoveString(ch.astorm.jchess.core.Move, java.lang.StringBuilder)
      */
     public static String getMoveString(Move move) {
+        StringBuilder builder = new StringBuilder(8);
+        appendMoveString(move, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the {@code move} in algebraic notation to {@code builder}.
+     * <p>The check is derived from the entities that moved and the lines they opened
+     * toward the opposite king, and the mate ({@value #CHECKMATE}) is only looked
+     * for once the move gives check. Both are only available once the move has been
+     * applied (see {@link Move#getPositionAfter()}).</p>
+     *
+     * @param move The move.
+     * @param builder The builder to append to.
+     */
+    public static void appendMoveString(Move move, StringBuilder builder) {
         Displacement displacement = move.getDisplacement();
         Moveable moveable = displacement.getMoveable();
+        Coordinate oldLocation = displacement.getOldLocation();
+        Coordinate newLocation = displacement.getNewLocation();
+
+        if(move.getLinkedDisplacements()!=null) {
+            builder.append(newLocation.getColumn()==2 ? BIG_CASTLING : SMALL_CASTLING);
+        } else {
+            boolean isCapture = move.getCapturedEntity()!=null;
+            if(moveable instanceof Pawn) {
+                if(isCapture) { builder.append((char)('a'+oldLocation.getColumn())); }
+            } else {
+                Character moveableChar = ENTITY_MAPPING.getKey(moveable.getClass());
+                if(moveableChar!=null) { builder.append(moveableChar.charValue()); }
+                appendDisambiguation(move, builder);
+            }
+
+            if(isCapture) { builder.append(CAPTURE_SEPARATOR); }
+            builder.append((char)('a'+newLocation.getColumn())).append(newLocation.getRow()+1);
+
+            if(move.isPromotionNeeded() && move.getPromotion()!=null) {
+                builder.append(PROMOTION_SEPARATOR).append(ENTITY_MAPPING.getKey(move.getPromotion().getClass()));
+            }
+        }
 
-        boolean isOppositeKingInCheck = false;
-        Color currentColor = moveable.getColor();
         Position positionAfter = move.getPositionAfter();
-        if(positionAfter!=null) {
-            Coordinate oppositeKingLocation = positionAfter.findLocation(King.class, currentColor.opposite());
-            isOppositeKingInCheck = positionAfter.canBeReached(oppositeKingLocation, currentColor);
+        if(positionAfter!=null && isCheck(move, positionAfter)) {
+            builder.append(positionAfter.getLegalMoves().isEmpty() ? CHECKMATE : CHECK);
         }
+    }
 
-        if(move.getLinkedDisplacements()!=null) {
-            int newColumn = displacement.getNewLocation().getColumn();
-            return newColumn==2 ? BIG_CASTLING : SMALL_CASTLING;
+    /**
+     * Appends the column and/or row of the origin when another entity of the same type
+     * can reach the target location.
+     */
+    private static void appendDisambiguation(Move move, StringBuilder builder) {
+        Displacement displacement = move.getDisplacement();
+        Moveable moveable = displacement.getMoveable();
+        Coordinate oldLocation = displacement.getOldLocation();
+        Coordinate newLocation = displacement.getNewLocation();
+        Position position = move.getPositionBefore();
+
+        boolean isAmbigous = false;
+        boolean ambigousColumn = false;
+        boolean ambigousRow = false;
+        for(Coordinate otherLocation : position.getAttackers(newLocation, moveable.getColor(), moveable.getClass(), -1, -1)) {
+            if(otherLocation.equals(oldLocation)) { continue; }
+
+            ambigousColumn |= otherLocation.getColumn()==oldLocation.getColumn();
+            ambigousRow |= otherLocation.getRow()==oldLocation.getRow();
+            isAmbigous = true;
         }
 
-        Character moveableChar = ENTITY_MAPPING.getKey(moveable.getClass());
-        String moveableStr = moveableChar!=null ? ""+moveableChar : "";
+        if(isAmbigous) {
+            if(ambigousRow || !ambigousColumn) { builder.append((char)('a'+oldLocation.getColumn())); }
+            if(ambigousColumn) { builder.append(oldLocation.getRow()+1); }
+        }
+    }
 
-        Coordinate newLocation = displacement.getNewLocation();
-        char column = (char)('a'+newLocation.getColumn());
-        String newLocationStr = column+""+(newLocation.getRow()+1);
+    /**
+     * Returns true if {@code move} checks the opposite king in {@code positionAfter}. Only
+     * the entities that moved and the ones behind the squares that have been left (or
+     * captured en passant) can give check.
+     */
+    private static boolean isCheck(Move move, Position positionAfter) {
+        Color color = move.getDisplacement().getMoveable().getColor();
+        Coordinate kingLocation = positionAfter.findLocation(King.class, color.opposite());
+        if(kingLocation==null) { return false; }
 
-        boolean isCapture = move.getCapturedEntity()!=null;
+        Displacement displacement = move.getDisplacement();
+        if(positionAfter.canBeReachedFrom(kingLocation, displacement.getNewLocation()) ||
+           isDiscoveredCheck(positionAfter, kingLocation, displacement.getOldLocation(), color)) {
+            return true;
+        }
 
-        String ambiguousStr = "";
-        if(moveable instanceof Pawn) {
-            if(isCapture) {
-                Coordinate oldLocation = displacement.getOldLocation();
-                ambiguousStr = ""+((char)('a'+oldLocation.getColumn()));
-            }
-        } else {
-            boolean isAmbigous = false;
-            boolean ambigousColumn = false;
-            boolean ambigousRow = false;
-            Coordinate oldLocation = displacement.getOldLocation();
-            Position position = move.getPositionBefore();
-            for(Moveable otherMoveable : position.getMoveables(moveable.getColor())) {
-                if(otherMoveable==moveable) { continue; }
-                if(otherMoveable.getClass()!=moveable.getClass()) { continue; }
-                if(!position.canBeReachedBy(newLocation, otherMoveable)) { continue; }
-
-                Coordinate otherLocation = position.getLocation(otherMoveable);
-                ambigousColumn |= otherLocation.getColumn()==oldLocation.getColumn();
-                ambigousRow |= otherLocation.getRow()==oldLocation.getRow();
-                isAmbigous |= true;
+        List<Displacement> linkedDisplacements = move.getLinkedDisplacements();
+        if(linkedDisplacements!=null) {
+            for(Displacement disp : linkedDisplacements) {
+                if(positionAfter.canBeReachedFrom(kingLocation, disp.getNewLocation()) ||
+                   isDiscoveredCheck(positionAfter, kingLocation, disp.getOldLocation(), color)) {
+                    return true;
+                }
             }
+        }
 
-            if(isAmbigous) {
-                if(ambigousRow || !ambigousColumn) { ambiguousStr += ((char)('a'+oldLocation.getColumn())); }
-                if(ambigousColumn) { ambiguousStr += ""+(oldLocation.getRow()+1); }
+        Moveable captured = move.getCapturedEntity();
+        if(captured!=null && move.getPositionBefore()!=null) {
+            Coordinate capturedLocation = move.getPositionBefore().getLocation(captured);
+            if(capturedLocation!=null && !capturedLocation.equals(displacement.getNewLocation())) {
+                return isDiscoveredCheck(positionAfter, kingLocation, capturedLocation, color);
             }
         }
 
-        String promotionStr = "";
-        if(move.isPromotionNeeded() && move.getPromotion()!=null) {
-            Character promotionChar = ENTITY_MAPPING.getKey(move.getPromotion().getClass());
-            promotionStr = PROMOTION_SEPARATOR+""+promotionChar;
-        }
+        return false;
+    }
 
-        return moveableStr+ambiguousStr+(isCapture ? CAPTURE_SEPARATOR : "")+
-               newLocationStr+promotionStr+(isOppositeKingInCheck ? CHECK : "");
+    /**
+     * Returns true if the first entity behind {@code emptied} on the line from the king
+     * belongs to {@code color} and reaches the king.
+     */
+    private static boolean isDiscoveredCheck(Position position, Coordinate kingLocation, Coordinate emptied, Color color) {
+        int rowDiff = emptied.getRow()-kingLocation.getRow();
+        int columnDiff = emptied.getColumn()-kingLocation.getColumn();
+        if(rowDiff!=0 && columnDiff!=0 && Math.abs(rowDiff)!=Math.abs(columnDiff)) { return false; }
+
+        int rowIncrement = Integer.signum(rowDiff);
+        int columnIncrement = Integer.signum(columnDiff);
+        Board board = position.getBoard();
+        Coordinate location = emptied.to(rowIncrement, columnIncrement);
+        while(board.isValid(location)) {
+            Moveable moveable = position.get(location);
+            if(moveable!=null) { return moveable.getColor()==color && position.canBeReachedFrom(kingLocation, location); }
+            location = location.to(rowIncrement, columnIncrement);
+        }
+        return false;
     }
 }
@@ -0,0 +1,140 @@
+package ch.astorm.jchess.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a gzip stream made of several members.
+ * <p>Each member is an independent gzip stream and a new one is started by
+ * {@link #finishMember()}. The members are decompressed as a single stream by
+ * {@link java.util.zip.GZIPInputStream} and {@link GZIPPipeInputStream}, hence the games
+ * of an export can be split in members (for instance one per shard) that can be
+ * concatenated or split again at their boundaries without recompression:</p>
+ * <pre>
+ * try(MultiMemberGZIPOutputStream output = new MultiMemberGZIPOutputStream(Files.newOutputStream(path));
+ *     PGNWriter writer = new PGNWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+ *     for(List&lt;JChessGame&gt; shard : shards) {
+ *         shard.forEach(writer::writeGame);
+ *         writer.flush();
+ *         output.finishMember();
+ *     }
+ * }
+ * </pre>
+ * <p>A member is only started once some data is written, so no empty member is created.</p>
+ */
+public class MultiMemberGZIPOutputStream extends FilterOutputStream {
+    /**
+     * Default size of the output buffer of the members (64KB).
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64*1024;
+
+    private final OutputStream target;
+    private final int level;
+    private final int bufferSize;
+    private GZIPOutputStream member;
+    private int memberCount;
+
+    /**
+     * Creates a new {@code MultiMemberGZIPOutputStream} with the default compression level.
+     *
+     * @param output The stream to write to.
+     */
+    public MultiMemberGZIPOutputStream(OutputStream output) {
+        this(output, Deflater.DEFAULT_COMPRESSION, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new {@code MultiMemberGZIPOutputStream}.
+     *
+     * @param output The stream to write to.
+     * @param level The compression level (0-9 or {@link Deflater#DEFAULT_COMPRESSION}).
+     * @param bufferSize The size of the output buffer in bytes.
+     * @throws IllegalArgumentException If {@code level} or {@code bufferSize} is invalid.
+     */
+    public MultiMemberGZIPOutputStream(OutputStream output, int level, int bufferSize) {
+        super(output);
+        if((level<0 || level>9) && level!=Deflater.DEFAULT_COMPRESSION) { throw new IllegalArgumentException("Invalid level: "+level); }
+        if(bufferSize<1) { throw new IllegalArgumentException("Invalid buffer size: "+bufferSize); }
+
+        //the members must not close the underlying stream
+        this.target = new FilterOutputStream(output) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        this.level = level;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Returns the number of members started so far.
+     */
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        getMember().write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if(length==0) { return; }
+        getMember().write(bytes, offset, length);
+    }
+
+    /**
+     * Ends the current member, if any. The next written data will start a new member.
+     *
+     * @throws IOException If an error occurs while writing.
+     */
+    public void finishMember() throws IOException {
+        if(member==null) { return; }
+
+        //releases the deflater of the member
+        GZIPOutputStream finished = member;
+        member = null;
+        finished.close();
+    }
+
+    /**
+     * Flushes the data compressed so far. Note that the data still held by the deflater
+     * is only written when the member is finished.
+     */
+    @Override
+    public void flush() throws IOException {
+        if(member!=null) { member.flush(); }
+        else { out.flush(); }
+    }
+
+    /**
+     * Finishes the current member and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        try { finishMember(); }
+        finally { out.close(); }
+    }
+
+    private GZIPOutputStream getMember() throws IOException {
+        if(member==null) {
+            member = new GZIPOutputStream(target, bufferSize) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            ++memberCount;
+        }
+        return member;
+    }
+}
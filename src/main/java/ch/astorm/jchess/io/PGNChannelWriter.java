@@ -0,0 +1,122 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes games in PGN format directly into a {@link WritableByteChannel}.
+ * <p>The output is the same as a {@link PGNWriter} over an {@code OutputStreamWriter}
+ * with the same charset, but the games are encoded in a buffer that is reused for all
+ * the games and only written to the channel once it is full. This is meant to export
+ * large collections of games:</p>
+ * <pre>
+ * try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+ *     PGNChannelWriter writer = new PGNChannelWriter(channel)) {
+ *     for(JChessGame game : games) { writer.writeGame(game); }
+ * }
+ * </pre>
+ * <p>This class is not thread-safe.</p>
+ */
+public class PGNChannelWriter implements Closeable, Flushable {
+    /**
+     * Default size of the buffer (64KB).
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64*1024;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private final PGNFormatter formatter = new PGNFormatter();
+    private final StringBuilder builder = new StringBuilder(1024);
+    private CharBuffer chars = CharBuffer.allocate(1024);
+
+    /**
+     * Creates a new {@code PGNChannelWriter} encoding the games in UTF-8.
+     *
+     * @param channel The channel to write to.
+     */
+    public PGNChannelWriter(WritableByteChannel channel) {
+        this(channel, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a new {@code PGNChannelWriter}.
+     *
+     * @param channel The channel to write to.
+     * @param charset The charset of the output.
+     */
+    public PGNChannelWriter(WritableByteChannel channel, Charset charset) {
+        this(channel, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new {@code PGNChannelWriter}.
+     *
+     * @param channel The channel to write to.
+     * @param charset The charset of the output.
+     * @param bufferSize The size of the buffer in bytes.
+     * @throws IllegalArgumentException If {@code bufferSize} is lower than 16.
+     */
+    public PGNChannelWriter(WritableByteChannel channel, Charset charset, int bufferSize) {
+        if(bufferSize<16) { throw new IllegalArgumentException("Invalid buffer size: "+bufferSize); }
+        this.channel = channel;
+        this.encoder = charset.newEncoder().
+                onMalformedInput(CodingErrorAction.REPLACE).
+                onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Writes the specified {@code game}. The game is only written to the channel once
+     * the buffer is full or when {@link #flush()} is invoked.
+     *
+     * @param game The game.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void writeGame(JChessGame game) throws IOException {
+        builder.setLength(0);
+        formatter.format(game, builder);
+
+        int length = builder.length();
+        if(chars.capacity()<length) { chars = CharBuffer.allocate(Math.max(length, 2*chars.capacity())); }
+        chars.clear();
+        builder.getChars(0, length, chars.array(), 0);
+        chars.limit(length);
+
+        encoder.reset();
+        while(encoder.encode(chars, buffer, true).isOverflow()) { drain(); }
+        while(encoder.flush(buffer).isOverflow()) { drain(); }
+    }
+
+    /**
+     * Writes the buffered games to the channel.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Flushes the buffered games and closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        try { flush(); }
+        finally { channel.close(); }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) { channel.write(buffer); }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,393 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Random access to the games of a PGN file through an index file.
+ * <p>The index is stored next to the PGN file (with the {@code .idx} extension) and
+ * records the offset and length of each game, with the values of a few metadata. It
+ * is built on the first opening with a {@link MappedPGNReader} and rebuilt when the PGN
+ * file has changed. Then the index is memory-mapped, so a game can be read by seeking
+ * directly to it:</p>
+ * <pre>
+ * try(PGNDatabase database = new PGNDatabase(path)) {
+ *     String white = database.getMetadata(1000, "White");
+ *     List&lt;JChessGame&gt; page = database.getGames(1000, 1020);
+ * }
+ * </pre>
+ * <p>The methods are thread-safe, but the games are read one at a time.</p>
+ */
+public class PGNDatabase implements Closeable {
+    /**
+     * Default metadata stored in the index.
+     */
+    public static final List<String> DEFAULT_INDEXED_METADATA = List.of("Event", "Date", "White", "Black", "Result");
+
+    private static final byte[] MAGIC = { 'J', 'C', 'G', 'I' };
+    private static final int VERSION = 2;
+
+    //offsets of the fields of the index header
+    private static final int PGN_SIZE_OFFSET = 5;
+    private static final int PGN_LAST_MODIFIED_OFFSET = 13;
+    private static final int GAME_COUNT_OFFSET = 21;
+    private static final int RECORDS_OFFSET = 25;
+    private static final int VALUES_OFFSET = 33;
+    private static final int KEYS_OFFSET = 41;
+
+    private final MappedPGNReader reader;
+    private final Arena arena;
+    private final ByteBuffer index;
+    private final List<String> indexedMetadata;
+    private final int gameCount;
+    private final int recordsOffset;
+    private final int valuesOffset;
+    private final int recordSize;
+    private final long pgnSize;
+
+    /**
+     * Opens the specified PGN file with the {@link #DEFAULT_INDEXED_METADATA}.
+     * The metadata values are decoded in UTF-8.
+     *
+     * @param pgn The PGN file.
+     * @throws IOException If the file cannot be read or the index cannot be written.
+     */
+    public PGNDatabase(Path pgn) throws IOException {
+        this(pgn, StandardCharsets.UTF_8, DEFAULT_INDEXED_METADATA);
+    }
+
+    /**
+     * Opens the specified PGN file.
+     *
+     * @param pgn The PGN file.
+     * @param charset The charset of the metadata values.
+     * @param indexedMetadata The metadata keys which values are stored in the index.
+     * @throws IOException If the file cannot be read or the index cannot be written.
+     */
+    public PGNDatabase(Path pgn, Charset charset, List<String> indexedMetadata) throws IOException {
+        this(pgn, charset, indexedMetadata, MappedPGNReader.DEFAULT_WINDOW_SIZE);
+    }
+
+    PGNDatabase(Path pgn, Charset charset, List<String> indexedMetadata, int windowSize) throws IOException {
+        if(indexedMetadata.size()>0xFF) { throw new IllegalArgumentException("Too many indexed metadata: "+indexedMetadata.size()); }
+        this.indexedMetadata = Collections.unmodifiableList(new ArrayList<>(indexedMetadata));
+        this.pgnSize = Files.size(pgn);
+
+        this.recordSize = 12+4*indexedMetadata.size();
+
+        //the index is only mapped once valid, so it is never replaced while mapped
+        Path indexPath = getIndexPath(pgn);
+        if(!isValid(indexPath, pgn)) { buildIndex(pgn, indexPath, charset, windowSize); }
+
+        this.arena = Arena.ofShared();
+        try {
+            this.index = map(indexPath, arena);
+            this.gameCount = index.getInt(GAME_COUNT_OFFSET);
+            this.recordsOffset = (int)index.getLong(RECORDS_OFFSET);
+            this.valuesOffset = (int)index.getLong(VALUES_OFFSET);
+            this.reader = new MappedPGNReader(pgn, charset, windowSize);
+        } catch(IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the path of the index file of {@code pgn}.
+     */
+    public static Path getIndexPath(Path pgn) {
+        return pgn.resolveSibling(pgn.getFileName()+".idx");
+    }
+
+    /**
+     * Returns the metadata keys stored in the index.
+     */
+    public List<String> getIndexedMetadata() {
+        return indexedMetadata;
+    }
+
+    /**
+     * Returns the number of games.
+     */
+    public int size() {
+        return gameCount;
+    }
+
+    /**
+     * Returns the offset of the game {@code index} in the PGN file, in bytes.
+     *
+     * @param index The index of the game (zero-based).
+     * @return The offset.
+     */
+    public long getOffset(int index) {
+        return this.index.getLong(getRecord(index));
+    }
+
+    /**
+     * Returns the length of the game {@code index} in the PGN file, in bytes. It includes
+     * the blank lines up to the next game.
+     *
+     * @param index The index of the game (zero-based).
+     * @return The length.
+     */
+    public int getLength(int index) {
+        return this.index.getInt(getRecord(index)+8);
+    }
+
+    /**
+     * Returns the value of the indexed metadata {@code key} of the game {@code index}
+     * without reading the PGN file.
+     *
+     * @param index The index of the game (zero-based).
+     * @param key The metadata key (eg 'White').
+     * @return The value or null if the game has no such metadata.
+     * @throws IllegalArgumentException If {@code key} is not indexed.
+     */
+    public String getMetadata(int index, String key) {
+        int keyIndex = indexedMetadata.indexOf(key);
+        if(keyIndex<0) { throw new IllegalArgumentException("Metadata is not indexed: "+key); }
+
+        int valueOffset = this.index.getInt(getRecord(index)+12+4*keyIndex);
+        if(valueOffset<0) { return null; }
+
+        int position = valuesOffset+valueOffset;
+        int length = this.index.getInt(position);
+        byte[] bytes = new byte[length];
+        this.index.get(position+4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the game {@code index}.
+     *
+     * @param index The index of the game (zero-based).
+     * @return The game.
+     * @throws PGNReader.PGNReaderException If a move cannot be played.
+     */
+    public JChessGame getGame(int index) throws IOException {
+        return getGames(index, index+1).get(0);
+    }
+
+    /**
+     * Reads the games from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive).
+     *
+     * @param fromIndex The index of the first game.
+     * @param toIndex The index after the last game.
+     * @return The games.
+     * @throws PGNReader.PGNReaderException If a move cannot be played.
+     */
+    public List<JChessGame> getGames(int fromIndex, int toIndex) throws IOException {
+        if(fromIndex<0 || toIndex>gameCount || fromIndex>toIndex) { throw new IndexOutOfBoundsException("Invalid range: "+fromIndex+" - "+toIndex); }
+
+        List<JChessGame> games = new ArrayList<>(toIndex-fromIndex);
+        if(fromIndex==toIndex) { return games; }
+
+        synchronized(reader) {
+            reader.seek(getOffset(fromIndex));
+            for(int i=fromIndex ; i<toIndex ; ++i) { games.add(reader.readGame()); }
+        }
+        return games;
+    }
+
+    /**
+     * Returns true if the moves are trusted.
+     *
+     * @see PGNReader#setTrusted(boolean)
+     */
+    public boolean isTrusted() {
+        return reader.isTrusted();
+    }
+
+    /**
+     * Defines if the moves are trusted (false by default).
+     *
+     * @param trusted True if the moves are trusted.
+     * @see PGNReader#setTrusted(boolean)
+     */
+    public void setTrusted(boolean trusted) {
+        reader.setTrusted(trusted);
+    }
+
+    /**
+     * Unmaps the index and closes the PGN file.
+     */
+    @Override
+    public void close() throws IOException {
+        try { arena.close(); }
+        finally { reader.close(); }
+    }
+
+    private int getRecord(int index) {
+        if(index<0 || index>=gameCount) { throw new IndexOutOfBoundsException("Invalid index: "+index); }
+        return recordsOffset+index*recordSize;
+    }
+
+    private static ByteBuffer map(Path indexPath, Arena arena) throws IOException {
+        try(FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            if(channel.size()>Integer.MAX_VALUE) { throw new IOException("Index is too big: "+indexPath); }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena).asByteBuffer();
+        }
+    }
+
+    /**
+     * Returns true if the header of the index matches the PGN file and the indexed
+     * metadata. The header is read without mapping the index and a truncated or corrupt
+     * index is considered as invalid.
+     */
+    private boolean isValid(Path indexPath, Path pgn) throws IOException {
+        if(!Files.isRegularFile(indexPath)) { return false; }
+        try(FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size>Integer.MAX_VALUE) { return false; }
+
+            ByteBuffer header = read(channel, 0, KEYS_OFFSET+1);
+            if(header==null || !header.slice(0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC)) || header.get(4)!=VERSION) { return false; }
+            if(header.getLong(PGN_SIZE_OFFSET)!=pgnSize) { return false; }
+            if(header.getLong(PGN_LAST_MODIFIED_OFFSET)!=Files.getLastModifiedTime(pgn).toMillis()) { return false; }
+
+            long gameCount = header.getInt(GAME_COUNT_OFFSET);
+            long recordsOffset = header.getLong(RECORDS_OFFSET);
+            long valuesOffset = header.getLong(VALUES_OFFSET);
+            if(gameCount<0 || recordsOffset<KEYS_OFFSET+1 || valuesOffset!=recordsOffset+gameCount*recordSize || valuesOffset>size) { return false; }
+
+            if((header.get(KEYS_OFFSET) & 0xFF)!=indexedMetadata.size()) { return false; }
+            long position = KEYS_OFFSET+1;
+            for(String key : indexedMetadata) {
+                byte[] expected = key.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer length = read(channel, position, 4);
+                if(length==null || length.getInt(0)!=expected.length) { return false; }
+
+                ByteBuffer bytes = read(channel, position+4, expected.length);
+                if(bytes==null || !bytes.equals(ByteBuffer.wrap(expected))) { return false; }
+                position += 4+expected.length;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code position} or returns null if the file is too short.
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        if(position+length>channel.size()) { return null; }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position+buffer.position())<0) { return null; }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Writes the index: the header, the records of the games (offset, length and offsets
+     * of the values) and then the metadata values.
+     * <p>The length of a game is only known once the next game has been found, hence each
+     * record is written when the next game is read. The values are written in a temporary
+     * file which is appended after the records, so the index is streamed to the disk
+     * whatever the number of games. The offsets of the values are relative to the start
+     * of the values.</p>
+     *
+     * @see IndexFiles#write(java.nio.file.Path, ch.astorm.jchess.io.IndexFiles.ContentWriter)
+     */
+    private void buildIndex(Path pgn, Path indexPath, Charset charset, int windowSize) throws IOException {
+        long lastModified = Files.getLastModifiedTime(pgn).toMillis();
+        Path valuesPath = Files.createTempFile(indexPath.toAbsolutePath().getParent(), indexPath.getFileName().toString(), ".values");
+        try {
+            IndexFiles.write(indexPath, channel -> {
+                try(MappedPGNReader pgnReader = new MappedPGNReader(pgn, charset, windowSize);
+                    FileChannel valuesChannel = FileChannel.open(valuesPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                    DataOutputStream values = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(valuesChannel)));
+
+                    output.write(MAGIC);
+                    output.writeByte(VERSION);
+                    output.writeLong(pgnSize);
+                    output.writeLong(lastModified);
+                    output.writeInt(0);  //game count
+                    output.writeLong(0); //records offset
+                    output.writeLong(0); //values offset
+                    output.writeByte(indexedMetadata.size());
+                    long recordsOffset = KEYS_OFFSET+1;
+                    for(String key : indexedMetadata) { recordsOffset += writeString(output, key); }
+
+                    long gameCount = 0;
+                    long valuesSize = 0;
+                    long previousOffset = -1;
+                    int[] valueOffsets = new int[indexedMetadata.size()];
+                    while(pgnReader.nextGame()) {
+                        long offset = pgnReader.getGameOffset();
+                        if(previousOffset>=0) { writeRecord(output, previousOffset, checkLength(offset-previousOffset), valueOffsets); }
+                        previousOffset = offset;
+
+                        for(int i=0 ; i<valueOffsets.length ; ++i) {
+                            String value = pgnReader.getMetadata(indexedMetadata.get(i));
+                            if(value!=null) {
+                                valueOffsets[i] = checkOffset(valuesSize);
+                                valuesSize += writeString(values, value);
+                            } else {
+                                valueOffsets[i] = -1;
+                            }
+                        }
+                        ++gameCount;
+                    }
+                    if(previousOffset>=0) { writeRecord(output, previousOffset, checkLength(pgnSize-previousOffset), valueOffsets); }
+
+                    long valuesOffset = recordsOffset+gameCount*recordSize;
+                    checkOffset(valuesOffset+valuesSize);
+                    output.flush();
+                    values.flush();
+
+                    long transferred = 0;
+                    while(transferred<valuesSize) { transferred += valuesChannel.transferTo(transferred, valuesSize-transferred, channel); }
+
+                    ByteBuffer counters = ByteBuffer.allocate(20);
+                    counters.putInt((int)gameCount).putLong(recordsOffset).putLong(valuesOffset).flip();
+                    while(counters.hasRemaining()) { channel.write(counters, GAME_COUNT_OFFSET+counters.position()); }
+                }
+            });
+        } finally {
+            Files.deleteIfExists(valuesPath);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream output, long offset, int length, int[] valueOffsets) throws IOException {
+        output.writeLong(offset);
+        output.writeInt(length);
+        for(int valueOffset : valueOffsets) { output.writeInt(valueOffset); }
+    }
+
+    /**
+     * Writes {@code str} in UTF-8, preceded by its length, and returns the number of bytes written.
+     */
+    private static int writeString(DataOutputStream output, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        return 4+bytes.length;
+    }
+
+    private static int checkOffset(long offset) throws IOException {
+        if(offset>Integer.MAX_VALUE) { throw new IOException("Index is too big"); }
+        return (int)offset;
+    }
+
+    private static int checkLength(long length) throws IOException {
+        if(length>Integer.MAX_VALUE) { throw new IOException("Game is too big: "+length+" bytes"); }
+        return (int)length;
+    }
+}
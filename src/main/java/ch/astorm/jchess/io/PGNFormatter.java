@@ -0,0 +1,79 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.core.Move;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Formats games in PGN format.
+ * <p>The builders are reused between the games, hence an instance must not be shared
+ * between threads.</p>
+ */
+class PGNFormatter {
+    private static final int LINE_LENGTH = 80;
+    private static final String[] MANDATORY_HEADERS = { "Event", "Site", "Date", "Round", "White", "Black" };
+
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH);
+    private final StringBuilder fullMove = new StringBuilder(32);
+
+    /**
+     * Appends the specified {@code game} to {@code builder}.
+     */
+    void format(JChessGame game, StringBuilder builder) {
+        String result = getResult(game.getStatus());
+
+        Map<String,String> metadata = game.getMetadata();
+        for(Entry<String,String> entry : metadata.entrySet()) {
+            String key = entry.getKey();
+            if(key.equalsIgnoreCase("Result")) { continue; }
+
+            builder.append('[').append(key).append(" \"");
+            String value = entry.getValue();
+            for(int i=0 ; i<value.length() ; ++i) {
+                char c = value.charAt(i);
+                builder.append(c=='"' ? '\'' : c);
+            }
+            builder.append("\"]\n");
+        }
+
+        for(String key : MANDATORY_HEADERS) {
+            if(metadata.containsKey(key)) { continue; }
+            builder.append('[').append(key).append(" \"").append(key.equals("Date") ? "????.??.??" : "").append("\"]\n");
+        }
+        builder.append("[Result \"").append(result).append("\"]\n\n");
+
+        int moveCounter = 1;
+        line.setLength(0);
+        Iterator<Move> moveIterator = game.getPosition().getMoveHistory().iterator();
+        while(moveIterator.hasNext()) {
+            fullMove.setLength(0);
+            fullMove.append(moveCounter).append('.');
+            MoveParser.appendMoveString(moveIterator.next(), fullMove);
+            fullMove.append(' ');
+
+            if(moveIterator.hasNext()) { MoveParser.appendMoveString(moveIterator.next(), fullMove); }
+
+            if(line.length()+fullMove.length()+1>LINE_LENGTH) {
+                builder.append(line).append('\n');
+                line.setLength(0);
+            } else if(line.length()>0) {
+                line.append(' ');
+            }
+            line.append(fullMove);
+
+            ++moveCounter;
+        }
+
+        builder.append(line).append(' ').append(result).append("\n\n");
+    }
+
+    private static String getResult(Status status) {
+        if(status==Status.NOT_FINISHED) { return "*"; }
+        else if(status==Status.WIN_WHITE) { return "1-0"; }
+        else if(status==Status.WIN_BLACK) { return "0-1"; }
+        else { return "1/2-1/2"; }
+    }
+}
@@ -3,21 +3,30 @@ package ch.astorm.jchess.io;
 
 import ch.astorm.jchess.JChessGame;
 import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.io.PGNTokenizer.TokenType;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Reads PGN files.
- * Note this reader only supports basic PGN files. Comments and deviations are not
- * supported.
+ * Only the main line of the games is replayed: the comments, variations and annotations
+ * are skipped (see {@link PGNTokenizer}).
  */
 public class PGNReader extends BufferedReader {
-    private final List<String> buffer = new ArrayList<>();
+    private String pendingLine;
+    private boolean trusted;
 
     /**
      * Exception thrown when a game cannot be replayed by {@link JChessGame}.
@@ -63,6 +72,28 @@ public class PGNReader extends BufferedReader {
         super(reader);
     }
 
+    /**
+     * Returns true if the moves are trusted.
+     *
+     * @see #setTrusted(boolean)
+     */
+    public boolean isTrusted() {
+        return trusted;
+    }
+
+    /**
+     * Defines if the moves are trusted (false by default). Trusted moves are replayed
+     * without checking that they are legal and the game status is only computed once
+     * all the moves have been played, which is much faster. This must only be used
+     * for PGN files known to be valid, such as the ones exported by {@link PGNWriter}.
+     *
+     * @param trusted True if the moves are trusted.
+     * @see JChessGame#playTrusted(java.lang.String)
+     */
+    public void setTrusted(boolean trusted) {
+        this.trusted = trusted;
+    }
+
     /**
      * Returns the next {@link JChessGame} in the PGN file. If there is no more game,
      * then null will be returned.
@@ -75,14 +106,26 @@ public class PGNReader extends BufferedReader {
         if(moves==null) { return null; }
 
         List<String> parsedMoves = parseMoves(moves);
+        return createGame(metadata, parsedMoves, moves, trusted);
+    }
 
+    /**
+     * Creates a new {@link JChessGame} with the given {@code metadata} and replays the
+     * {@code parsedMoves}. The end game status is set from the end of {@code moves}.
+     */
+    static JChessGame createGame(Map<String, String> metadata, List<String> parsedMoves, String moves, boolean trusted) {
         JChessGame game = JChessGame.newGame();
         game.getMetadata().putAll(metadata);
 
         for(String move : parsedMoves) {
-            try { game.play(move); }
-            catch(Exception e) { throw new PGNReaderException(e, game, parsedMoves, move); }
+            try {
+                if(trusted) { game.playTrusted(move); }
+                else { game.play(move); }
+            } catch(Exception e) {
+                throw new PGNReaderException(e, game, parsedMoves, move);
+            }
         }
+        if(trusted) { game.updateStatus(); }
 
         if(moves.endsWith("1-0")) { game.resign(Color.BLACK); }
         else if(moves.endsWith("0-1")) { game.resign(Color.WHITE); }
@@ -93,9 +136,58 @@ public class PGNReader extends BufferedReader {
         return game;
     }
 
+    /**
+     * Returns an {@code Iterator} over the remaining games of the PGN file. The games
+     * are read lazily, one at a time, when {@link Iterator#hasNext()} is invoked.
+     * <p>If an {@link IOException} is thrown while reading, it is wrapped in an
+     * {@link UncheckedIOException}.</p>
+     *
+     * @return The iterator of the games.
+     */
+    public Iterator<JChessGame> gameIterator() {
+        return new Iterator<JChessGame>() {
+            private JChessGame nextGame;
+
+            @Override
+            public boolean hasNext() {
+                if(nextGame!=null) { return true; }
+                try { nextGame = readGame(); }
+                catch(IOException ioe) { throw new UncheckedIOException(ioe); }
+                return nextGame!=null;
+            }
+
+            @Override
+            public JChessGame next() {
+                if(!hasNext()) { throw new NoSuchElementException(); }
+                JChessGame game = nextGame;
+                nextGame = null;
+                return game;
+            }
+        };
+    }
+
+    /**
+     * Returns a {@code Stream} of the remaining games of the PGN file. The stream is
+     * lazily populated while it is consumed, hence only the current game is held in
+     * memory and a short-circuiting operation stops the reading.
+     * <p>The reader must not be used while the stream is being consumed and has to be
+     * closed by the caller, as for {@link #lines()}. If an {@link IOException} is thrown
+     * while reading, it is wrapped in an {@link UncheckedIOException}.</p>
+     *
+     * @return The stream of the games.
+     */
+    public Stream<JChessGame> games() {
+        Spliterator<JChessGame> spliterator = Spliterators.spliteratorUnknownSize(gameIterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
     private String nextLine() throws IOException {
-        if(!buffer.isEmpty()) { return buffer.remove(0); }
-        
+        if(pendingLine!=null) {
+            String line = pendingLine;
+            pendingLine = null;
+            return line;
+        }
+
         String line = readLine();
         while(line!=null && line.trim().isEmpty()) { line = readLine(); }
         return line;
@@ -111,7 +203,7 @@ public class PGNReader extends BufferedReader {
         if(line==null) { return null; }
         if(line.startsWith("[")) { return line; }
 
-        buffer.add(line);
+        pendingLine = line;
         return null;
     }
 
@@ -144,14 +236,17 @@ public class PGNReader extends BufferedReader {
      */
     protected String readMoves() throws IOException {
         StringBuilder moves = new StringBuilder(256);
+        boolean inComment = false;
         String moveLine = nextLine();
         while(moveLine!=null) {
-            if(moveLine.startsWith("[") || (moveLine.startsWith("1.") && moves.length()>0)) {
-                buffer.add(moveLine);
+            if(!inComment && (moveLine.startsWith("[") || (moveLine.startsWith("1.") && moves.length()>0))) {
+                pendingLine = moveLine;
                 break;
             }
 
-            moves.append(moveLine.trim()).append(" ");
+            //the lines are kept, since a comment starting with ';' ends with the line
+            moves.append(moveLine.trim()).append('\n');
+            inComment = isInComment(moveLine, inComment);
             moveLine = nextLine();
         }
         return moves.length()>0 ? moves.toString().trim() : null;
@@ -162,29 +257,54 @@ public class PGNReader extends BufferedReader {
      */
     protected List<String> parseMoves(String moves) {
         List<String> parsedMoves = new ArrayList<>(64);
-        int moveCounter = 1;
-        String nextMoveStr = moveCounter+".";
-        int nextMove = moves.indexOf(nextMoveStr);
-        if (nextMove > 0) throw new IllegalArgumentException("Invalid moves: "+moves);
-        while(nextMove>=0) {
-            int currentMove = nextMove;
-            int moveLength = nextMoveStr.length();
-
-            ++moveCounter;
-            nextMoveStr = moveCounter+".";
-            nextMove = moves.indexOf(nextMoveStr);
-
-            String whiteBlackMove = moves.substring(currentMove+moveLength, nextMove<0 ? moves.length() : nextMove).trim();
-            int firstSpace = whiteBlackMove.indexOf(' ');
-            int secondSpace = whiteBlackMove.indexOf(' ', firstSpace+1);
-
-            String whiteMove = whiteBlackMove.substring(0, firstSpace).trim();
-            parsedMoves.add(whiteMove);
-
-            String blackMove = whiteBlackMove.substring(firstSpace+1, secondSpace<0 ? whiteBlackMove.length() : secondSpace).trim();
-            if(!blackMove.isEmpty()) { parsedMoves.add(blackMove); }
+        parseMainLine(new PGNTokenizer(moves), parsedMoves);
+        return parsedMoves;
+    }
+
+    /**
+     * Adds the moves of the main line read by {@code tokenizer} to {@code moves}. The
+     * comments, variations and annotations are skipped.
+     *
+     * @return The result token or null if there is none.
+     * @throws IllegalArgumentException If a move number of the main line does not match.
+     */
+    static String parseMainLine(PGNTokenizer tokenizer, List<String> moves) {
+        String result = null;
+        int variationDepth = 0;
+        TokenType type = tokenizer.next();
+        while(type!=null) {
+            switch(type) {
+                case VARIATION_START: ++variationDepth; break;
+                case VARIATION_END: --variationDepth; break;
+                case MOVE_NUMBER:
+                    if(variationDepth==0 && tokenizer.getMoveNumber()!=moves.size()/2+1) {
+                        throw new IllegalArgumentException("Invalid move number: "+tokenizer.getToken());
+                    }
+                    break;
+                case MOVE:
+                    if(variationDepth==0) { moves.add(tokenizer.getToken()); }
+                    break;
+                case RESULT:
+                    if(variationDepth==0) { result = tokenizer.getToken(); }
+                    break;
+                default:
+                    break;
+            }
+            type = tokenizer.next();
         }
+        return result;
+    }
 
-        return parsedMoves;
+    /**
+     * Returns true if a comment between braces is still open at the end of {@code line}.
+     */
+    private static boolean isInComment(String line, boolean inComment) {
+        for(int i=0 ; i<line.length() ; ++i) {
+            char c = line.charAt(i);
+            if(inComment) { inComment = c!='}'; }
+            else if(c=='{') { inComment = true; }
+            else if(c==';') { break; }
+        }
+        return inComment;
     }
 }
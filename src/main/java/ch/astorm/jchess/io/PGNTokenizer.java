@@ -0,0 +1,229 @@
+package ch.astorm.jchess.io;
+
+/**
+ * Splits the moves of a PGN game into tokens.
+ * <p>The text is read in a single pass and the tokens are only described by their
+ * bounds in the text, hence no {@code String} is created unless {@link #getToken()}
+ * is invoked. The supported tokens are listed in {@link TokenType}.</p>
+ * <pre>
+ * PGNTokenizer tokenizer = new PGNTokenizer("1.e4 {best by test} e5 (1...c5 $1) 2.Nf3 1-0");
+ * TokenType type = tokenizer.next();
+ * while(type!=null) {
+ *     if(type==TokenType.MOVE) { String move = tokenizer.getToken(); }
+ *     type = tokenizer.next();
+ * }
+ * </pre>
+ */
+public class PGNTokenizer {
+    private final CharSequence text;
+    private final int end;
+    private int position;
+    private TokenType tokenType;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Type of the tokens.
+     */
+    public static enum TokenType {
+        /**
+         * Move number (eg '12.' or '12...').
+         */
+        MOVE_NUMBER,
+
+        /**
+         * Move in algebraic notation (eg 'Nxe5+').
+         */
+        MOVE,
+
+        /**
+         * Comment between braces (eg '{good move}') or until the end of the line
+         * (eg '; good move').
+         */
+        COMMENT,
+
+        /**
+         * Start of a variation: '('.
+         */
+        VARIATION_START,
+
+        /**
+         * End of a variation: ')'.
+         */
+        VARIATION_END,
+
+        /**
+         * Numeric annotation glyph (eg '$1') or move suffix annotation (eg '!?').
+         */
+        NAG,
+
+        /**
+         * Game result: '1-0', '0-1', '1/2-1/2' or '*'. Any other token starting
+         * with a digit (except the castles written with zeros) is also a result.
+         */
+        RESULT
+    }
+
+    /**
+     * Creates a new {@code PGNTokenizer} for the whole specified {@code text}.
+     */
+    public PGNTokenizer(CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    /**
+     * Creates a new {@code PGNTokenizer} for the specified {@code text} between
+     * {@code start} (inclusive) and {@code end} (exclusive).
+     */
+    public PGNTokenizer(CharSequence text, int start, int end) {
+        if(start<0 || end>text.length() || start>end) { throw new IllegalArgumentException("Invalid bounds: "+start+" - "+end); }
+        this.text = text;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return The type of the token or null if there is no more token.
+     */
+    public TokenType next() {
+        while(position<end && Character.isWhitespace(text.charAt(position))) { ++position; }
+        if(position>=end) {
+            tokenType = null;
+            tokenStart = tokenEnd = end;
+            return null;
+        }
+
+        tokenStart = position;
+        char c = text.charAt(position);
+        switch(c) {
+            case '{':
+                position = indexOf('}', position+1);
+                position = position<end ? position+1 : end;
+                tokenType = TokenType.COMMENT;
+                break;
+            case ';':
+                position = indexOf('\n', position+1);
+                tokenType = TokenType.COMMENT;
+                break;
+            case '(':
+                ++position;
+                tokenType = TokenType.VARIATION_START;
+                break;
+            case ')':
+                ++position;
+                tokenType = TokenType.VARIATION_END;
+                break;
+            case '$':
+                ++position;
+                while(position<end && isDigit(text.charAt(position))) { ++position; }
+                tokenType = TokenType.NAG;
+                break;
+            case '!':
+            case '?':
+                while(position<end && isSuffixAnnotation(text.charAt(position))) { ++position; }
+                tokenType = TokenType.NAG;
+                break;
+            case '*':
+                ++position;
+                tokenType = TokenType.RESULT;
+                break;
+            default:
+                if(isDigit(c)) { readNumber(); }
+                else { readMove(); }
+        }
+
+        tokenEnd = position;
+        return tokenType;
+    }
+
+    /**
+     * Returns the type of the current token or null if there is none.
+     */
+    public TokenType getTokenType() {
+        return tokenType;
+    }
+
+    /**
+     * Returns the index of the first character of the current token in the text.
+     */
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the index after the last character of the current token in the text.
+     */
+    public int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * Returns the text of the current token.
+     */
+    public String getToken() {
+        return text.subSequence(tokenStart, tokenEnd).toString();
+    }
+
+    /**
+     * Returns the value of the current {@link TokenType#MOVE_NUMBER} token
+     * (eg 12 for '12...').
+     */
+    public int getMoveNumber() {
+        if(tokenType!=TokenType.MOVE_NUMBER) { throw new IllegalStateException("Current token is not a move number"); }
+
+        int number = 0;
+        for(int i=tokenStart ; i<tokenEnd && isDigit(text.charAt(i)) ; ++i) { number = number*10+(text.charAt(i)-'0'); }
+        return number;
+    }
+
+    /**
+     * Reads a token starting with a digit: a move number, a castling written with
+     * zeros (eg '0-0') or a result. Any other token is considered as a result, so an
+     * invalid result (eg '1-1') is not taken for a move.
+     */
+    private void readNumber() {
+        while(position<end && isDigit(text.charAt(position))) { ++position; }
+        if(position<end && text.charAt(position)=='.') {
+            while(position<end && text.charAt(position)=='.') { ++position; }
+            tokenType = TokenType.MOVE_NUMBER;
+            return;
+        }
+
+        while(position<end && !isDelimiter(text.charAt(position))) { ++position; }
+        tokenType = startsWith("0-0") ? TokenType.MOVE : TokenType.RESULT;
+    }
+
+    private void readMove() {
+        ++position;
+        while(position<end && !isDelimiter(text.charAt(position)) && !isSuffixAnnotation(text.charAt(position))) { ++position; }
+        tokenType = TokenType.MOVE;
+    }
+
+    private boolean startsWith(String str) {
+        if(position-tokenStart<str.length()) { return false; }
+        for(int i=0 ; i<str.length() ; ++i) {
+            if(text.charAt(tokenStart+i)!=str.charAt(i)) { return false; }
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from) {
+        int i = from;
+        while(i<end && text.charAt(i)!=c) { ++i; }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c>='0' && c<='9';
+    }
+
+    private static boolean isSuffixAnnotation(char c) {
+        return c=='!' || c=='?';
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c=='{' || c=='}' || c=='(' || c==')' || c==';' || c=='$';
+    }
+}
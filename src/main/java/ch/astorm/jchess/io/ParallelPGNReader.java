@@ -0,0 +1,249 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads PGN files with multiple threads.
+ * <p>The PGN file is read sequentially and split in chunks of games. A new game starts
+ * with an {@code [Event} line that follows a blank line (or is the first line of the
+ * file). Each chunk is then parsed and replayed by a {@link PGNReader} on a {@link ForkJoinPool},
+ * which is where most of the time is spent.</p>
+ * <p>Only a bounded number of chunks (twice the parallelism of the pool) are read
+ * ahead, so the memory does not depend on the size of the file.</p>
+ * <p>Note that PGN files without any {@code [Event} metadata cannot be split, hence
+ * they are read by a single thread.</p>
+ */
+public class ParallelPGNReader implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final boolean ownPool;
+    private int chunkSize = 64;
+    private boolean trusted;
+
+    /**
+     * Creates a new {@code ParallelPGNReader} with its own {@link ForkJoinPool}.
+     * The pool is shut down by {@link #close()}.
+     *
+     * @param parallelism The parallelism level (number of worker threads).
+     * @throws IllegalArgumentException If {@code parallelism} is zero or negative.
+     */
+    public ParallelPGNReader(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.ownPool = true;
+    }
+
+    /**
+     * Creates a new {@code ParallelPGNReader} running on the specified {@code pool}.
+     * The pool is left untouched by {@link #close()}.
+     *
+     * @param pool The pool.
+     */
+    public ParallelPGNReader(ForkJoinPool pool) {
+        this.pool = pool;
+        this.ownPool = false;
+    }
+
+    /**
+     * Returns the number of games in a chunk.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Defines the number of games in a chunk (64 by default). Small chunks balance
+     * better the work between the threads but have more overhead.
+     *
+     * @param chunkSize The number of games (at least 1).
+     */
+    public void setChunkSize(int chunkSize) {
+        if(chunkSize<1) { throw new IllegalArgumentException("Invalid chunk size: "+chunkSize); }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns true if the moves are trusted.
+     *
+     * @see PGNReader#setTrusted(boolean)
+     */
+    public boolean isTrusted() {
+        return trusted;
+    }
+
+    /**
+     * Defines if the moves are trusted (false by default).
+     *
+     * @param trusted True if the moves are trusted.
+     * @see PGNReader#setTrusted(boolean)
+     */
+    public void setTrusted(boolean trusted) {
+        this.trusted = trusted;
+    }
+
+    /**
+     * Returns a {@code Stream} of the games read from {@code reader}. The stream is lazily
+     * populated while it is consumed and closing it cancels the chunks that are still pending.
+     * <p>If {@code ordered} is true, the games are in the order of the file. Otherwise,
+     * the chunks are returned as soon as they are parsed, which avoids that a slow chunk
+     * blocks the ones after it.</p>
+     * <p>The {@code reader} has to be closed by the caller. If an {@link IOException} is
+     * thrown while reading, it is wrapped in an {@link UncheckedIOException}. If a game
+     * cannot be replayed, the {@link PGNReader.PGNReaderException} is thrown by the stream.</p>
+     *
+     * @param reader The PGN content.
+     * @param ordered True if the games must be in the order of the file.
+     * @return The stream of the games.
+     */
+    public Stream<JChessGame> games(Reader reader, boolean ordered) {
+        GameIterator iterator = new GameIterator(reader, ordered);
+        int characteristics = ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        Spliterator<JChessGame> spliterator = Spliterators.spliteratorUnknownSize(iterator, characteristics);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::cancel);
+    }
+
+    /**
+     * Shuts down the {@link ForkJoinPool} if it has been created by this instance.
+     */
+    @Override
+    public void close() {
+        if(ownPool) { pool.shutdown(); }
+    }
+
+    private static List<JChessGame> parse(String chunk, boolean trusted) throws IOException {
+        List<JChessGame> games = new ArrayList<>();
+        try(PGNReader reader = new PGNReader(new StringReader(chunk))) {
+            reader.setTrusted(trusted);
+            JChessGame game = reader.readGame();
+            while(game!=null) {
+                games.add(game);
+                game = reader.readGame();
+            }
+        }
+        return games;
+    }
+
+    private class GameIterator implements Iterator<JChessGame> {
+        private final BufferedReader reader;
+        private final boolean ordered;
+        private final CompletionService<List<JChessGame>> completionService;
+        private final Deque<Future<List<JChessGame>>> pending = new ArrayDeque<>();
+        private final boolean trusted = ParallelPGNReader.this.trusted;
+        private final int maxPending = 2*pool.getParallelism();
+        private Iterator<JChessGame> current = Collections.emptyIterator();
+        private String pendingLine;
+        private boolean eof;
+
+        GameIterator(Reader reader, boolean ordered) {
+            this.reader = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+            this.ordered = ordered;
+            this.completionService = ordered ? null : new ExecutorCompletionService<>(pool);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(!current.hasNext()) {
+                submitChunks();
+                if(pending.isEmpty()) { return false; }
+                current = nextChunk().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public JChessGame next() {
+            if(!hasNext()) { throw new NoSuchElementException(); }
+            return current.next();
+        }
+
+        void cancel() {
+            pending.forEach(f -> f.cancel(true));
+            pending.clear();
+        }
+
+        private void submitChunks() {
+            while(!eof && pending.size()<maxPending) {
+                String chunk = readChunk();
+                if(chunk==null) {
+                    eof = true;
+                    break;
+                }
+
+                Future<List<JChessGame>> future = ordered ? pool.submit(() -> parse(chunk, trusted)) : completionService.submit(() -> parse(chunk, trusted));
+                pending.add(future);
+            }
+        }
+
+        private List<JChessGame> nextChunk() {
+            try {
+                Future<List<JChessGame>> future;
+                if(ordered) { future = pending.poll(); }
+                else {
+                    future = completionService.take();
+                    pending.remove(future);
+                }
+                return future.get();
+            } catch(InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new IllegalStateException("Interrupted while waiting for the games", ie);
+            } catch(ExecutionException ee) {
+                cancel();
+                Throwable cause = ee.getCause();
+                if(cause instanceof RuntimeException) { throw (RuntimeException)cause; }
+                if(cause instanceof Error) { throw (Error)cause; }
+                if(cause instanceof IOException) { throw new UncheckedIOException((IOException)cause); }
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        /**
+         * Reads the next {@link #chunkSize} games.
+         * Returns null if EOF has been reached.
+         */
+        private String readChunk() {
+            StringBuilder chunk = new StringBuilder(chunkSize*1024);
+            boolean previousBlank = true;
+            int games = 0;
+            try {
+                String line = pendingLine!=null ? pendingLine : reader.readLine();
+                pendingLine = null;
+                while(line!=null) {
+                    if(previousBlank && line.startsWith("[Event")) {
+                        if(games==chunkSize) {
+                            pendingLine = line;
+                            break;
+                        }
+                        ++games;
+                    }
+
+                    chunk.append(line).append('\n');
+                    previousBlank = line.trim().isEmpty();
+                    line = reader.readLine();
+                }
+            } catch(IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+            return chunk.length()>0 ? chunk.toString() : null;
+        }
+    }
+}
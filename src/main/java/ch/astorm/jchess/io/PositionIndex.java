@@ -0,0 +1,349 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Position;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Index of the positions reached in a collection of games.
+ * <p>The index is built once by replaying the games (see {@link #build(java.util.Iterator, java.nio.file.Path)})
+ * and stores the {@link Position#getZobristKey() Zobrist key} of every position of each game,
+ * sorted by key. The games are identified by their index in the collection, as in
+ * {@link PGNDatabase}. The index file is then memory-mapped and the games reaching a
+ * position are found by a binary search, without replaying any game:</p>
+ * <pre>
+ * try(PGNReader reader = new PGNReader(Files.newBufferedReader(pgn, StandardCharsets.ISO_8859_1))) {
+ *     PositionIndex.build(reader.gameIterator(), indexPath);
+ * }
+ * try(PositionIndex index = new PositionIndex(indexPath)) {
+ *     int[] gameIds = index.find(position);
+ * }
+ * </pre>
+ * <p>As the Zobrist key includes the color on move, the castling rights and the en passant
+ * square, two positions are the same if they are the same for the repetition rules. Distinct
+ * positions with the same key (collisions) are extremely unlikely but not impossible.</p>
+ */
+public class PositionIndex implements Closeable {
+    private static final byte[] MAGIC = { 'J', 'C', 'P', 'I' };
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 13;
+    private static final int ENTRY_SIZE = 12;
+    private static final int SEGMENT_ENTRIES = (1<<30)/ENTRY_SIZE;
+    private static final int DEFAULT_RUN_SIZE = 4*1024*1024;
+    private static final int INITIAL_RUN_CAPACITY = 4096;
+
+    private final Arena arena;
+    private final ByteBuffer[] segments;
+    private final long size;
+    private volatile boolean closed;
+
+    /**
+     * Opens the specified index file.
+     *
+     * @param indexPath The index file.
+     * @throws IOException If the file cannot be read or is not a position index.
+     */
+    public PositionIndex(Path indexPath) throws IOException {
+        try(FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while(header.hasRemaining() && channel.read(header)>=0) {}
+            header.flip();
+
+            byte[] magic = new byte[MAGIC.length];
+            if(header.remaining()<HEADER_SIZE) { throw new IOException("Invalid position index: "+indexPath); }
+            header.get(magic);
+            if(!Arrays.equals(magic, MAGIC)) { throw new IOException("Invalid position index: "+indexPath); }
+            int version = header.get();
+            if(version!=VERSION) { throw new IOException("Unsupported version: "+version); }
+
+            size = header.getLong();
+            if(channel.size()!=HEADER_SIZE+size*ENTRY_SIZE) { throw new IOException("Truncated position index: "+indexPath); }
+
+            arena = Arena.ofShared();
+            segments = new ByteBuffer[(int)((size+SEGMENT_ENTRIES-1)/SEGMENT_ENTRIES)];
+            try {
+                for(int i=0 ; i<segments.length ; ++i) {
+                    long first = (long)i*SEGMENT_ENTRIES;
+                    long count = Math.min(SEGMENT_ENTRIES, size-first);
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE+first*ENTRY_SIZE, count*ENTRY_SIZE, arena).asByteBuffer();
+                }
+            } catch(IOException | RuntimeException e) {
+                arena.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries (distinct positions of each game).
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the identifiers of the games that reached the specified {@code position},
+     * in ascending order.
+     *
+     * @param position The position.
+     * @return The identifiers of the games.
+     * @throws IllegalStateException If the index is closed.
+     */
+    public int[] find(Position position) {
+        return find(position.getZobristKey());
+    }
+
+    /**
+     * Returns the identifiers of the games that reached a position with the specified
+     * {@code zobristKey}, in ascending order.
+     *
+     * @param zobristKey The Zobrist key of the position.
+     * @return The identifiers of the games.
+     * @throws IllegalStateException If the index is closed.
+     */
+    public int[] find(long zobristKey) {
+        if(closed) { throw new IllegalStateException("closed"); }
+
+        long low = 0;
+        long high = size;
+        while(low<high) {
+            long middle = (low+high)>>>1;
+            if(getKey(middle)<zobristKey) { low = middle+1; }
+            else { high = middle; }
+        }
+
+        long end = low;
+        while(end<size && getKey(end)==zobristKey) { ++end; }
+
+        int[] gameIds = new int[(int)(end-low)];
+        for(int i=0 ; i<gameIds.length ; ++i) { gameIds[i] = getGameId(low+i); }
+        return gameIds;
+    }
+
+    /**
+     * Unmaps the index.
+     */
+    @Override
+    public void close() {
+        if(closed) { return; }
+        closed = true;
+        arena.close();
+    }
+
+    private long getKey(long entry) {
+        return segments[(int)(entry/SEGMENT_ENTRIES)].getLong((int)(entry%SEGMENT_ENTRIES)*ENTRY_SIZE);
+    }
+
+    private int getGameId(long entry) {
+        return segments[(int)(entry/SEGMENT_ENTRIES)].getInt((int)(entry%SEGMENT_ENTRIES)*ENTRY_SIZE+8);
+    }
+
+    /**
+     * Builds the index of the specified {@code games} into {@code indexPath}. The games
+     * are identified by their index in the iteration and are only held one at a time.
+     * <p>The entries are sorted by chunks in memory, which are merged once all the games
+     * have been replayed, so the memory used does not depend on the number of games.</p>
+     *
+     * @param games The games.
+     * @param indexPath The index file.
+     * @return The number of games.
+     * @throws IOException If the index cannot be written.
+     */
+    public static int build(Iterator<JChessGame> games, Path indexPath) throws IOException {
+        return build(games, indexPath, DEFAULT_RUN_SIZE);
+    }
+
+    static int build(Iterator<JChessGame> games, Path indexPath, int runSize) throws IOException {
+        Path directory = indexPath.toAbsolutePath().getParent();
+        List<Path> runs = new ArrayList<>();
+        long[] keys = new long[Math.min(runSize, INITIAL_RUN_CAPACITY)];
+        int[] gameIds = new int[keys.length];
+        int count = 0;
+        int gameId = 0;
+        try {
+            while(games.hasNext()) {
+                Position position = games.next().getPosition();
+                while(position!=null) {
+                    if(count==runSize) {
+                        runs.add(writeRun(directory, keys, gameIds, count));
+                        count = 0;
+                    } else if(count==keys.length) {
+                        //the arrays only grow up to the run size for the small collections
+                        int capacity = (int)Math.min(runSize, 2L*keys.length);
+                        keys = Arrays.copyOf(keys, capacity);
+                        gameIds = Arrays.copyOf(gameIds, capacity);
+                    }
+
+                    keys[count] = position.getZobristKey();
+                    gameIds[count] = gameId;
+                    ++count;
+                    position = position.getPreviousPosition();
+                }
+                ++gameId;
+            }
+            if(count>0 || runs.isEmpty()) { runs.add(writeRun(directory, keys, gameIds, count)); }
+
+            merge(runs, indexPath);
+        } finally {
+            for(Path run : runs) { Files.deleteIfExists(run); }
+        }
+        return gameId;
+    }
+
+    private static Path writeRun(Path directory, long[] keys, int[] gameIds, int count) throws IOException {
+        sort(keys, gameIds, 0, count-1);
+
+        Path run = Files.createTempFile(directory, "positions", ".run");
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1<<16))) {
+            for(int i=0 ; i<count ; ++i) {
+                //the same position can be reached several times in a game
+                if(i>0 && keys[i]==keys[i-1] && gameIds[i]==gameIds[i-1]) { continue; }
+                output.writeLong(keys[i]);
+                output.writeInt(gameIds[i]);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges the sorted {@code runs} into the index.
+     *
+     * @see IndexFiles#write(java.nio.file.Path, ch.astorm.jchess.io.IndexFiles.ContentWriter)
+     */
+    private static void merge(List<Path> runs, Path indexPath) throws IOException {
+        IndexFiles.write(indexPath, channel -> {
+            PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size());
+            try {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1<<16));
+                output.write(MAGIC);
+                output.writeByte(VERSION);
+                output.writeLong(0); //number of entries
+
+                for(Path run : runs) {
+                    RunReader reader = new RunReader(run);
+                    if(reader.next()) { queue.add(reader); }
+                    else { reader.close(); }
+                }
+
+                long size = 0;
+                long lastKey = 0;
+                int lastGameId = -1;
+                while(!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    if(reader.key!=lastKey || reader.gameId!=lastGameId) {
+                        output.writeLong(reader.key);
+                        output.writeInt(reader.gameId);
+                        lastKey = reader.key;
+                        lastGameId = reader.gameId;
+                        ++size;
+                    }
+
+                    if(reader.next()) { queue.add(reader); }
+                    else { reader.close(); }
+                }
+                output.flush();
+
+                ByteBuffer sizeBuffer = ByteBuffer.allocate(8);
+                sizeBuffer.putLong(size).flip();
+                channel.write(sizeBuffer, HEADER_SIZE-8);
+            } finally {
+                for(RunReader reader : queue) { reader.close(); }
+            }
+        });
+    }
+
+    private static void sort(long[] keys, int[] gameIds, int low, int high) {
+        while(high-low>16) {
+            int middle = (low+high)>>>1;
+            long pivotKey = keys[middle];
+            int pivotGameId = gameIds[middle];
+            int i = low;
+            int j = high;
+            while(i<=j) {
+                while(compare(keys[i], gameIds[i], pivotKey, pivotGameId)<0) { ++i; }
+                while(compare(keys[j], gameIds[j], pivotKey, pivotGameId)>0) { --j; }
+                if(i<=j) {
+                    swap(keys, gameIds, i, j);
+                    ++i;
+                    --j;
+                }
+            }
+
+            //recursion on the smallest part to bound the stack
+            if(j-low<high-i) {
+                sort(keys, gameIds, low, j);
+                low = i;
+            } else {
+                sort(keys, gameIds, i, high);
+                high = j;
+            }
+        }
+
+        for(int i=low+1 ; i<=high ; ++i) {
+            for(int j=i ; j>low && compare(keys[j], gameIds[j], keys[j-1], gameIds[j-1])<0 ; --j) { swap(keys, gameIds, j, j-1); }
+        }
+    }
+
+    private static int compare(long key1, int gameId1, long key2, int gameId2) {
+        int result = Long.compare(key1, key2);
+        return result!=0 ? result : Integer.compare(gameId1, gameId2);
+    }
+
+    private static void swap(long[] keys, int[] gameIds, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+
+        int gameId = gameIds[i];
+        gameIds[i] = gameIds[j];
+        gameIds[j] = gameId;
+    }
+
+    private static class RunReader implements Comparable<RunReader>, Closeable {
+        private final DataInputStream input;
+        private long key;
+        private int gameId;
+
+        RunReader(Path run) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1<<16));
+        }
+
+        boolean next() throws IOException {
+            try {
+                key = input.readLong();
+                gameId = input.readInt();
+                return true;
+            } catch(EOFException eofe) {
+                return false;
+            }
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            return compare(key, gameId, other.key, other.gameId);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
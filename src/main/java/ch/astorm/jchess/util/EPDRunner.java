@@ -0,0 +1,303 @@
+package ch.astorm.jchess.util;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.Moveable;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import ch.astorm.jchess.io.EPDRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Checks the expectations of {@link EPDRecord EPD records} concurrently.
+ * <p>The following operations are supported, the other ones being ignored:</p>
+ * <ul>
+ *  <li>{@code D1} to {@code D6}: the number of leaf nodes of the {@link Perft} at the given depth
+ *      (the maximum depth can be changed with {@link #setMaxDepth(int)}),</li>
+ *  <li>{@code bm} and {@code am}: the best moves and the moves to avoid, which must be legal
+ *      moves of the position. If a move searcher is defined (see {@link #setMoveSearcher(java.util.function.Function)}),
+ *      its move must be one of the best moves and none of the moves to avoid.</li>
+ * </ul>
+ * <p>Each record is checked by a single task on its own {@link Position}, and the results
+ * are returned in the order of the records with the time spent on each of them:</p>
+ * <pre>
+ * try(EPDReader reader = new EPDReader(Files.newBufferedReader(path));
+ *     EPDRunner runner = new EPDRunner(8)) {
+ *     for(EPDRunner.Result result : runner.run(reader.records().collect(Collectors.toList()))) {
+ *         if(!result.isSuccess()) { System.out.println(result); }
+ *     }
+ * }
+ * </pre>
+ */
+public class EPDRunner implements AutoCloseable {
+    /**
+     * Default maximum perft depth.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 6;
+
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private Representation representation = Representation.BITBOARD;
+    private Function<Position, Move> moveSearcher;
+
+    /**
+     * Result of the checks of an {@link EPDRecord}.
+     */
+    public static class Result {
+        private final EPDRecord record;
+        private final int checks;
+        private final List<String> failures;
+        private final long duration;
+
+        Result(EPDRecord record, int checks, List<String> failures, long duration) {
+            this.record = record;
+            this.checks = checks;
+            this.failures = Collections.unmodifiableList(failures);
+            this.duration = duration;
+        }
+
+        /**
+         * Returns the checked record.
+         */
+        public EPDRecord getRecord() {
+            return record;
+        }
+
+        /**
+         * Returns the number of checks done.
+         */
+        public int getChecks() {
+            return checks;
+        }
+
+        /**
+         * Returns the description of the failed checks.
+         */
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns true if all the checks have passed.
+         */
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+
+        /**
+         * Returns the time spent on the record in nanoseconds.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            String status = isSuccess() ? "OK" : "FAILED "+failures;
+            return record+": "+status+" ("+checks+" checks, "+TimeUnit.NANOSECONDS.toMillis(duration)+" ms)";
+        }
+    }
+
+    /**
+     * Creates a new {@code EPDRunner} with its own {@link ForkJoinPool}.
+     * The pool is shut down by {@link #close()}.
+     *
+     * @param parallelism The parallelism level (number of worker threads).
+     * @throws IllegalArgumentException If {@code parallelism} is zero or negative.
+     */
+    public EPDRunner(int parallelism) {
+        this.executor = new ForkJoinPool(parallelism);
+        this.ownExecutor = true;
+    }
+
+    /**
+     * Creates a new {@code EPDRunner} running on the specified {@code executor}.
+     * The executor is left untouched by {@link #close()}.
+     *
+     * @param executor The executor.
+     */
+    public EPDRunner(ExecutorService executor) {
+        this.executor = executor;
+        this.ownExecutor = false;
+    }
+
+    /**
+     * Returns the maximum perft depth to check.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Defines the maximum perft depth to check ({@link #DEFAULT_MAX_DEPTH} by default).
+     * The deeper operations are ignored.
+     *
+     * @param maxDepth The maximum depth (at least 1).
+     */
+    public void setMaxDepth(int maxDepth) {
+        if(maxDepth<1) { throw new IllegalArgumentException("Invalid depth: "+maxDepth); }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns the internal representation of the positions.
+     */
+    public Representation getRepresentation() {
+        return representation;
+    }
+
+    /**
+     * Defines the internal representation of the positions ({@link Representation#BITBOARD}
+     * by default).
+     *
+     * @param representation The representation.
+     */
+    public void setRepresentation(Representation representation) {
+        this.representation = representation;
+    }
+
+    /**
+     * Returns the function that selects the move to check against the {@code bm} and
+     * {@code am} operations or null.
+     */
+    public Function<Position, Move> getMoveSearcher() {
+        return moveSearcher;
+    }
+
+    /**
+     * Defines the function that selects the move to check against the {@code bm} and
+     * {@code am} operations (null by default). The function is invoked concurrently on
+     * distinct positions, which must be left as they were.
+     *
+     * @param moveSearcher The move searcher or null.
+     */
+    public void setMoveSearcher(Function<Position, Move> moveSearcher) {
+        this.moveSearcher = moveSearcher;
+    }
+
+    /**
+     * Checks the specified {@code records} concurrently and returns the results in the
+     * same order.
+     *
+     * @param records The records.
+     * @return The results.
+     */
+    public List<Result> run(List<EPDRecord> records) {
+        List<Future<Result>> futures = new ArrayList<>(records.size());
+        for(EPDRecord record : records) { futures.add(executor.submit(() -> check(record))); }
+
+        List<Result> results = new ArrayList<>(records.size());
+        for(Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch(InterruptedException ie) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", ie);
+            } catch(ExecutionException ee) {
+                throw new IllegalStateException(ee.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Checks the specified {@code record} in the current thread.
+     *
+     * @param record The record.
+     * @return The result.
+     */
+    public Result check(EPDRecord record) {
+        long start = System.nanoTime();
+        int checks = 0;
+        List<String> failures = new ArrayList<>(0);
+
+        try {
+            JChessGame game = record.toGame(representation);
+            Position position = game.getPosition();
+            Move searched = null;
+
+            for(Entry<String, List<String>> operation : record.getOperations().entrySet()) {
+                String opcode = operation.getKey();
+                List<String> operands = operation.getValue();
+
+                int depth = getPerftDepth(opcode);
+                if(depth>0) {
+                    if(depth>maxDepth) { continue; }
+                    ++checks;
+
+                    long expected = Long.parseLong(operands.get(0));
+                    long nodes = Perft.count(position, depth);
+                    if(nodes!=expected) { failures.add(opcode+": expected "+expected+" nodes but was "+nodes); }
+                } else if(opcode.equals("bm") || opcode.equals("am")) {
+                    ++checks;
+
+                    List<Move> moves = new ArrayList<>(operands.size());
+                    for(String operand : operands) {
+                        try { moves.add(game.getMove(operand)); }
+                        catch(Exception e) { failures.add(opcode+": "+operand+" is not a legal move"); }
+                    }
+
+                    if(moveSearcher!=null && moves.size()==operands.size()) {
+                        if(searched==null) { searched = moveSearcher.apply(position); }
+
+                        boolean found = false;
+                        for(Move move : moves) { found |= isSameMove(move, searched); }
+                        if(opcode.equals("bm") && !found) { failures.add("bm: "+searched+" is not in "+operands); }
+                        if(opcode.equals("am") && found) { failures.add("am: "+searched+" is in "+operands); }
+                    }
+                }
+            }
+        } catch(Exception e) {
+            failures.add(e.toString());
+        }
+
+        return new Result(record, checks, failures, System.nanoTime()-start);
+    }
+
+    /**
+     * Returns the depth of a perft opcode ('D' followed by the depth) or 0.
+     */
+    private static int getPerftDepth(String opcode) {
+        if(opcode.length()<2 || opcode.length()>3 || opcode.charAt(0)!='D') { return 0; }
+
+        int depth = 0;
+        for(int i=1 ; i<opcode.length() ; ++i) {
+            char chr = opcode.charAt(i);
+            if(chr<'0' || chr>'9') { return 0; }
+            depth = depth*10+(chr-'0');
+        }
+        return depth;
+    }
+
+    private static boolean isSameMove(Move move, Move other) {
+        if(other==null) { return false; }
+        if(!move.getDisplacement().getOldLocation().equals(other.getDisplacement().getOldLocation()) ||
+           !move.getDisplacement().getNewLocation().equals(other.getDisplacement().getNewLocation())) {
+            return false;
+        }
+
+        Moveable promotion = move.getPromotion();
+        Moveable otherPromotion = other.getPromotion();
+        if(promotion==null || otherPromotion==null) { return promotion==otherPromotion; }
+        return promotion.getClass()==otherPromotion.getClass();
+    }
+
+    /**
+     * Shuts down the {@link ForkJoinPool} if it has been created by this instance.
+     */
+    @Override
+    public void close() {
+        if(ownExecutor) { executor.shutdown(); }
+    }
+}
@@ -0,0 +1,156 @@
+package ch.astorm.jchess.util;
+
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.util.Perft.Result;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel version of {@link Perft} running on a {@link ForkJoinPool}.
+ * <p>The first plies (only the root by default, see {@link #setSplitDepth(int)}) are
+ * split into one task per move. Each task works on its own {@link Position}, created
+ * with {@link Position#apply(ch.astorm.jchess.core.Move)}, and then runs the
+ * sequential perft. The results are merged in the order of the legal moves, hence
+ * they do not depend on the scheduling of the tasks.</p>
+ * <p>The given {@code Position} must not be modified while the perft is running.</p>
+ */
+public class ParallelPerft implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final boolean ownPool;
+    private int splitDepth = 1;
+
+    /**
+     * Creates a new {@code ParallelPerft} with its own {@link ForkJoinPool}.
+     * The pool is shut down by {@link #close()}.
+     *
+     * @param parallelism The parallelism level (number of worker threads).
+     * @throws IllegalArgumentException If {@code parallelism} is zero or negative.
+     */
+    public ParallelPerft(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.ownPool = true;
+    }
+
+    /**
+     * Creates a new {@code ParallelPerft} running on the specified {@code pool}.
+     * The pool is left untouched by {@link #close()}.
+     *
+     * @param pool The pool.
+     */
+    public ParallelPerft(ForkJoinPool pool) {
+        this.pool = pool;
+        this.ownPool = false;
+    }
+
+    /**
+     * Returns the number of plies that are split into tasks.
+     */
+    public int getSplitDepth() {
+        return splitDepth;
+    }
+
+    /**
+     * Defines the number of plies that are split into tasks. With 1 (default), there
+     * is one task per root move. Deeper splits create more and smaller tasks.
+     *
+     * @param splitDepth The number of plies (at least 1).
+     */
+    public void setSplitDepth(int splitDepth) {
+        if(splitDepth<1) { throw new IllegalArgumentException("Invalid split depth: "+splitDepth); }
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Returns the number of leaf nodes at {@code depth} from {@code position}.
+     *
+     * @see Perft#count(ch.astorm.jchess.core.Position, int)
+     */
+    public long count(Position position, int depth) {
+        Perft.checkDepth(depth);
+        return pool.invoke(new PerftTask(position, depth, splitDepth, false)).getNodes();
+    }
+
+    /**
+     * Returns the number of leaf nodes at {@code depth} for each legal move of
+     * {@code position}.
+     *
+     * @see Perft#divide(ch.astorm.jchess.core.Position, int)
+     */
+    public Map<String, Long> divide(Position position, int depth) {
+        if(depth<1) { throw new IllegalArgumentException("Invalid depth: "+depth); }
+
+        List<Move> moves = Perft.getExpandedMoves(position);
+        List<PerftTask> tasks = new ArrayList<>(moves.size());
+        for(Move move : moves) { tasks.add(new PerftTask(position, move, depth-1, splitDepth-1, false)); }
+        tasks.forEach(pool::execute);
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for(int i=0 ; i<moves.size() ; ++i) { result.put(Perft.toString(moves.get(i)), tasks.get(i).join().getNodes()); }
+        return result;
+    }
+
+    /**
+     * Returns the leaf nodes at {@code depth} from {@code position} with their breakdown.
+     *
+     * @see Perft#analyze(ch.astorm.jchess.core.Position, int)
+     */
+    public Result analyze(Position position, int depth) {
+        Perft.checkDepth(depth);
+        return pool.invoke(new PerftTask(position, depth, splitDepth, true));
+    }
+
+    /**
+     * Shuts down the {@link ForkJoinPool} if it has been created by this instance.
+     */
+    @Override
+    public void close() {
+        if(ownPool) { pool.shutdown(); }
+    }
+
+    private static class PerftTask extends RecursiveTask<Result> {
+        private final Position parent;
+        private final Move move;
+        private final int depth;
+        private final int splitDepth;
+        private final boolean breakdown;
+
+        PerftTask(Position position, int depth, int splitDepth, boolean breakdown) {
+            this(position, null, depth, splitDepth, breakdown);
+        }
+
+        /**
+         * Creates a task for the position reached by {@code move} from {@code parent}.
+         * The position is created by the task itself, so the work is not done by the
+         * thread that splits.
+         */
+        PerftTask(Position parent, Move move, int depth, int splitDepth, boolean breakdown) {
+            this.parent = parent;
+            this.move = move;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+            this.breakdown = breakdown;
+        }
+
+        @Override
+        protected Result compute() {
+            Position position = move!=null ? parent.apply(move) : parent;
+            if(splitDepth<=0 || depth<2) {
+                return breakdown ? Perft.analyze(position, depth) : new Result(Perft.count(position, depth));
+            }
+
+            List<Move> moves = Perft.getExpandedMoves(position);
+            List<PerftTask> tasks = new ArrayList<>(moves.size());
+            for(Move m : moves) { tasks.add(new PerftTask(position, m, depth-1, splitDepth-1, breakdown)); }
+            invokeAll(tasks);
+
+            Result result = new Result();
+            for(PerftTask task : tasks) { result.add(task.join()); }
+            return result;
+        }
+    }
+}
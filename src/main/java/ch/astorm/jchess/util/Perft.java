@@ -0,0 +1,303 @@
+package ch.astorm.jchess.util;
+
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Coordinate;
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.Moveable;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Undo;
+import ch.astorm.jchess.core.entities.Bishop;
+import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Knight;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+import ch.astorm.jchess.core.rules.Displacement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Performance test of the move generation.
+ * <p>Counts the leaf nodes of the legal move tree up to a given depth. The moves are
+ * applied in place on the {@link Position} (see {@link Position#makeMove(ch.astorm.jchess.core.Move)}),
+ * which is restored as it was once the count is done. Moves that need a promotion
+ * are expanded to the four possible promotions.</p>
+ * <p>The results can be compared with the reference values of the standard perft
+ * positions: https://www.chessprogramming.org/Perft_Results</p>
+ */
+public class Perft {
+    static final List<Function<Color, Moveable>> PROMOTIONS = Arrays.asList(Queen::new, Rook::new, Bishop::new, Knight::new);
+
+    private Perft() {}
+
+    /**
+     * Breakdown of the leaf nodes of a perft.
+     * Each counter relates to the moves of the last ply.
+     */
+    public static class Result {
+        private long nodes;
+        private long captures;
+        private long enPassants;
+        private long castles;
+        private long promotions;
+        private long checks;
+        private long checkmates;
+
+        Result() {}
+
+        Result(long nodes) {
+            this.nodes = nodes;
+        }
+
+        /**
+         * Returns the number of leaf nodes.
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Returns the number of captures, including the en-passant ones.
+         */
+        public long getCaptures() {
+            return captures;
+        }
+
+        /**
+         * Returns the number of en-passant captures.
+         */
+        public long getEnPassants() {
+            return enPassants;
+        }
+
+        /**
+         * Returns the number of castles.
+         */
+        public long getCastles() {
+            return castles;
+        }
+
+        /**
+         * Returns the number of promotions.
+         */
+        public long getPromotions() {
+            return promotions;
+        }
+
+        /**
+         * Returns the number of moves that give check, including the checkmates.
+         */
+        public long getChecks() {
+            return checks;
+        }
+
+        /**
+         * Returns the number of checkmates.
+         */
+        public long getCheckmates() {
+            return checkmates;
+        }
+
+        /**
+         * Adds the counters of {@code other} to this result.
+         */
+        void add(Result other) {
+            nodes += other.nodes;
+            captures += other.captures;
+            enPassants += other.enPassants;
+            castles += other.castles;
+            promotions += other.promotions;
+            checks += other.checks;
+            checkmates += other.checkmates;
+        }
+
+        @Override
+        public String toString() {
+            return "nodes="+nodes+", captures="+captures+", enPassants="+enPassants+", castles="+castles+
+                   ", promotions="+promotions+", checks="+checks+", checkmates="+checkmates;
+        }
+    }
+
+    /**
+     * Returns the number of leaf nodes at {@code depth} from {@code position}.
+     * The moves of the last ply are only counted, not applied.
+     *
+     * @param position The position.
+     * @param depth The depth (zero or positive).
+     * @return The number of leaf nodes.
+     */
+    public static long count(Position position, int depth) {
+        checkDepth(depth);
+        return depth==0 ? 1 : countNodes(position, depth);
+    }
+
+    /**
+     * Returns the number of leaf nodes at {@code depth} for each legal move of
+     * {@code position}. The moves are in the order of the legal moves and are
+     * keyed by their coordinates (eg 'e2e4' or 'e7e8q' for promotions).
+     *
+     * @param position The position.
+     * @param depth The depth (at least 1).
+     * @return The number of leaf nodes by root move.
+     */
+    public static Map<String, Long> divide(Position position, int depth) {
+        if(depth<1) { throw new IllegalArgumentException("Invalid depth: "+depth); }
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for(Move move : position.getLegalMoves()) {
+            if(move.isPromotionNeeded()) {
+                Color color = move.getDisplacement().getMoveable().getColor();
+                for(Function<Color, Moveable> promotion : PROMOTIONS) {
+                    move.setPromotion(promotion.apply(color));
+                    result.put(toString(move), countMove(position, move, depth-1));
+                }
+                move.setPromotion(null);
+            } else {
+                result.put(toString(move), countMove(position, move, depth-1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the leaf nodes at {@code depth} from {@code position} with their
+     * breakdown. Unlike {@link #count(ch.astorm.jchess.core.Position, int)}, all the
+     * moves of the last ply are applied, hence it is much slower.
+     *
+     * @param position The position.
+     * @param depth The depth (zero or positive).
+     * @return The breakdown of the leaf nodes.
+     */
+    public static Result analyze(Position position, int depth) {
+        checkDepth(depth);
+
+        Result result = new Result();
+        if(depth==0) { result.nodes = 1; }
+        else { analyze(position, depth, result); }
+        return result;
+    }
+
+    /**
+     * Returns the coordinates notation of {@code move} (eg 'e2e4' or 'e7e8q').
+     */
+    static String toString(Move move) {
+        Displacement displacement = move.getDisplacement();
+        String str = displacement.getOldLocation().toString()+displacement.getNewLocation().toString();
+
+        Moveable promotion = move.getPromotion();
+        if(promotion instanceof Queen) { return str+"q"; }
+        if(promotion instanceof Rook) { return str+"r"; }
+        if(promotion instanceof Bishop) { return str+"b"; }
+        if(promotion instanceof Knight) { return str+"n"; }
+        return str;
+    }
+
+    /**
+     * Returns the legal moves of {@code position}, where each move that needs a
+     * promotion is replaced by one move per possible promotion.
+     */
+    static List<Move> getExpandedMoves(Position position) {
+        List<Move> legalMoves = position.getLegalMoves();
+        List<Move> moves = new ArrayList<>(legalMoves.size()+8);
+        for(Move move : legalMoves) {
+            if(!move.isPromotionNeeded()) {
+                moves.add(move);
+                continue;
+            }
+
+            Color color = move.getDisplacement().getMoveable().getColor();
+            for(Function<Color, Moveable> promotion : PROMOTIONS) {
+                Move promotionMove = new Move(position, move.getDisplacement(), move.getCapturedEntity());
+                promotionMove.setPromotionNeeded(true);
+                promotionMove.setPromotion(promotion.apply(color));
+                moves.add(promotionMove);
+            }
+        }
+        return moves;
+    }
+
+    static void checkDepth(int depth) {
+        if(depth<0) { throw new IllegalArgumentException("Invalid depth: "+depth); }
+    }
+
+    private static long countNodes(Position position, int depth) {
+        List<Move> moves = position.getLegalMoves();
+        if(depth==1) {
+            long nodes = 0;
+            for(Move move : moves) { nodes += move.isPromotionNeeded() ? PROMOTIONS.size() : 1; }
+            return nodes;
+        }
+
+        long nodes = 0;
+        for(Move move : moves) {
+            if(move.isPromotionNeeded()) {
+                Color color = move.getDisplacement().getMoveable().getColor();
+                for(Function<Color, Moveable> promotion : PROMOTIONS) {
+                    move.setPromotion(promotion.apply(color));
+                    nodes += countMove(position, move, depth-1);
+                }
+                move.setPromotion(null);
+            } else {
+                nodes += countMove(position, move, depth-1);
+            }
+        }
+        return nodes;
+    }
+
+    private static long countMove(Position position, Move move, int depth) {
+        if(depth==0) { return 1; }
+
+        Undo undo = position.makeMove(move);
+        try { return countNodes(position, depth); }
+        finally { position.unmakeMove(undo); }
+    }
+
+    private static void analyze(Position position, int depth, Result result) {
+        for(Move move : position.getLegalMoves()) {
+            if(move.isPromotionNeeded()) {
+                Color color = move.getDisplacement().getMoveable().getColor();
+                for(Function<Color, Moveable> promotion : PROMOTIONS) {
+                    move.setPromotion(promotion.apply(color));
+                    analyzeMove(position, move, depth-1, result);
+                }
+                move.setPromotion(null);
+            } else {
+                analyzeMove(position, move, depth-1, result);
+            }
+        }
+    }
+
+    private static void analyzeMove(Position position, Move move, int depth, Result result) {
+        if(depth==0) {
+            ++result.nodes;
+
+            Moveable captured = move.getCapturedEntity();
+            if(captured!=null) {
+                ++result.captures;
+                Coordinate capturedLocation = position.getLocation(captured);
+                if(!capturedLocation.equals(move.getDisplacement().getNewLocation())) { ++result.enPassants; }
+            }
+            if(move.getLinkedDisplacements()!=null) { ++result.castles; }
+            if(move.getPromotion()!=null) { ++result.promotions; }
+        }
+
+        Undo undo = position.makeMove(move);
+        try {
+            if(depth==0) {
+                Color colorOnMove = position.getColorOnMove();
+                Coordinate kingLocation = position.findLocation(King.class, colorOnMove);
+                if(kingLocation!=null && position.canBeReached(kingLocation, colorOnMove.opposite())) {
+                    ++result.checks;
+                    if(position.getLegalMoves().isEmpty()) { ++result.checkmates; }
+                }
+            } else {
+                analyze(position, depth, result);
+            }
+        } finally {
+            position.unmakeMove(undo);
+        }
+    }
+}
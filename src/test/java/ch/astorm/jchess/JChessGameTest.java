@@ -147,6 +147,10 @@ public class JChessGameTest {
 
         int incr = 0;
         while(game.getStatus()==Status.NOT_FINISHED) {
+            int halfMoves = game.getPosition().getMoveHistory().size();
+            assertEquals(halfMoves, game.getPosition().getHalfMoveClock());
+            assertEquals(halfMoves>=RuleManager.CLAIMABLE_DRAW_MOVE_LIMIT*2, game.getRuleManager().isNoCaptureDrawClaimable(game.getPosition()));
+
             List<Move> available = game.getAvailableMoves();
             
             Move move = available.get(incr % available.size());
@@ -161,6 +165,28 @@ public class JChessGameTest {
 
         assertEquals(Status.DRAW_NOCAPTURE, game.getStatus());
         assertEquals(RuleManager.FORCED_DRAW_MOVE_LIMIT*2, game.getPosition().getMoveHistory().size());
+        assertEquals(RuleManager.FORCED_DRAW_MOVE_LIMIT*2, game.getPosition().getHalfMoveClock());
+        assertTrue(game.getRuleManager().isNoCaptureDrawClaimable(game.getPosition()));
+    }
+
+    @Test
+    public void testHalfMoveClock() {
+        JChessGame game = JChessGame.newGame();
+        game.play("Nf3", "Nf6", "Nc3");
+        assertEquals(3, game.getPosition().getHalfMoveClock());
+
+        game.play("e5");
+        assertEquals(0, game.getPosition().getHalfMoveClock());
+
+        game.play("Nxe5");
+        assertEquals(0, game.getPosition().getHalfMoveClock());
+
+        game.play("Nc6");
+        assertEquals(1, game.getPosition().getHalfMoveClock());
+
+        game.back(3);
+        assertEquals(3, game.getPosition().getHalfMoveClock());
+        assertFalse(game.getRuleManager().isNoCaptureDrawClaimable(game.getPosition()));
     }
 
     @Test
@@ -3,12 +3,25 @@ package ch.astorm.jchess.core;
 
 import ch.astorm.jchess.JChessGame;
 import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.core.Position.Representation;
+import ch.astorm.jchess.core.Position.Undo;
+import ch.astorm.jchess.core.entities.Bishop;
 import ch.astorm.jchess.core.entities.King;
 import ch.astorm.jchess.core.entities.Knight;
+import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+import ch.astorm.jchess.core.rules.RuleManager;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
@@ -76,4 +89,331 @@ public class PositionTest {
         assertTrue(pos2.equals(pos1));
         assertEquals(pos1.hashCode(), pos2.hashCode());
     }
+
+    @Test
+    public void testBitboardInvalidBoard() {
+        assertThrows(IllegalArgumentException.class, () -> new Position(new Board(10, 10), new RuleManager(), Color.WHITE, Representation.BITBOARD));
+    }
+
+    @Test
+    public void testBitboardMoveables() {
+        JChessGame game = JChessGame.newEmptyGame(Color.WHITE, Representation.BITBOARD);
+        Position position = game.getPosition();
+        assertEquals(Representation.BITBOARD, position.getRepresentation());
+
+        Knight knight = new Knight(Color.WHITE);
+        assertNull(position.put("e5", knight));
+        assertSame(knight, position.get("e5"));
+        assertEquals(new Coordinate("e5"), position.getLocation(knight));
+        assertEquals(new Coordinate("e5"), position.findLocation(Knight.class, Color.WHITE));
+        assertNull(position.findLocation(Knight.class, Color.BLACK));
+
+        position.put("c3", knight);
+        assertNull(position.get("e5"));
+        assertSame(knight, position.get("c3"));
+        assertEquals(1, position.getMoveables().size());
+
+        Knight other = new Knight(Color.BLACK);
+        assertSame(knight, position.put("c3", other));
+        assertNull(position.getLocation(knight));
+        assertEquals(1, position.getMoveables(Color.BLACK).size());
+        assertTrue(position.getMoveables(Color.WHITE).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> position.put("a1", () -> Color.WHITE));
+    }
+
+    @Test
+    public void testBitboardSameAsMap() {
+        String[] moves = {"e4","e5","Nf3","Nc6","Bb5","a6","Ba4","Nf6","O-O","Be7",
+                          "Re1","b5","Bb3","d6","c3","O-O","h3","Nb8","d4","Nbd7",
+                          "c4","c6","cxb5","axb5","Nc3","Bb7","Bg5","b4","Nb1","h6",
+                          "Bh4","c5","dxe5","Nxe4","Bxe7","Qxe7","exd6","Qf6","Nbd2","Nxd6"};
+
+        JChessGame mapGame = JChessGame.newGame();
+        JChessGame bitboardGame = JChessGame.newGame(Representation.BITBOARD);
+        for(String move : moves) {
+            assertEquals(mapGame.getAvailableMoves().size(), bitboardGame.getAvailableMoves().size());
+            assertEquals(mapGame.play(move), bitboardGame.play(move));
+            assertTrue(mapGame.getPosition().equals(bitboardGame.getPosition()));
+            assertTrue(bitboardGame.getPosition().equals(mapGame.getPosition()));
+        }
+    }
+
+    @Test
+    public void testGetAttackers() {
+        for(Representation representation : Representation.values()) {
+            JChessGame game = JChessGame.newEmptyGame(Color.WHITE, representation);
+            game.put("g2", new King(Color.WHITE));
+            game.put("a1", new Rook(Color.WHITE));
+            game.put("h1", new Rook(Color.WHITE));
+            game.put("b3", new Knight(Color.WHITE));
+            game.put("f3", new Knight(Color.WHITE));
+            game.put("a2", new Bishop(Color.WHITE));
+            game.put("c4", new Pawn(Color.WHITE));
+            game.put("e4", new Pawn(Color.WHITE));
+            game.put("d5", new Pawn(Color.BLACK));
+            game.put("d8", new Queen(Color.BLACK));
+            game.put("a8", new King(Color.BLACK));
+
+            Position position = game.getPosition();
+            assertEquals(Set.of(new Coordinate("a1"), new Coordinate("h1")), new HashSet<>(position.getAttackers(new Coordinate("d1"), Color.WHITE, Rook.class, -1, -1)));
+            assertEquals(List.of(new Coordinate("a1")), position.getAttackers(new Coordinate("d1"), Color.WHITE, Rook.class, 0, -1));
+            assertEquals(Set.of(new Coordinate("b3"), new Coordinate("f3")), new HashSet<>(position.getAttackers(new Coordinate("d2"), Color.WHITE, Knight.class, -1, -1)));
+            assertEquals(List.of(new Coordinate("b3")), position.getAttackers(new Coordinate("d2"), Color.WHITE, Knight.class, 1, -1));
+            assertEquals(Set.of(new Coordinate("c4"), new Coordinate("e4")), new HashSet<>(position.getAttackers(new Coordinate("d5"), Color.WHITE, Pawn.class, -1, -1)));
+            assertEquals(List.of(new Coordinate("g2")), position.getAttackers(new Coordinate("f1"), Color.WHITE, King.class, -1, -1));
+
+            //the pawns only attack their diagonals and the sliders are blocked
+            assertTrue(position.getAttackers(new Coordinate("c5"), Color.WHITE, Pawn.class, -1, -1).isEmpty());
+            assertTrue(position.getAttackers(new Coordinate("d5"), Color.WHITE, Bishop.class, -1, -1).isEmpty());
+            assertTrue(position.getAttackers(new Coordinate("d1"), Color.BLACK, Queen.class, -1, -1).isEmpty());
+
+            //an entity of the same color cannot be taken
+            assertTrue(position.getAttackers(new Coordinate("d5"), Color.BLACK, Queen.class, -1, -1).isEmpty());
+        }
+    }
+
+    @Test
+    public void testMakeUnmakeMove() {
+        for(Representation representation : Representation.values()) {
+            JChessGame game = JChessGame.newEmptyGame(Color.BLACK, representation);
+            game.put("e1", new King(Color.WHITE));
+            game.put("h1", new Rook(Color.WHITE));
+            game.put("b7", new Pawn(Color.WHITE));
+            game.put("e5", new Pawn(Color.WHITE));
+            game.put("e8", new King(Color.BLACK));
+            game.put("d7", new Pawn(Color.BLACK));
+            game.put("a8", new Rook(Color.BLACK));
+            game.play("d5");
+
+            Position position = game.getPosition();
+            Map<Coordinate, Moveable> moveables = new HashMap<>(position.getMoveables());
+            List<Move> legalMoves = position.getLegalMoves();
+            assertTrue(legalMoves.stream().anyMatch(m -> m.getLinkedDisplacements()!=null));
+            assertTrue(legalMoves.stream().anyMatch(m -> m.getCapturedEntity() instanceof Pawn));
+            assertTrue(legalMoves.stream().anyMatch(m -> m.isPromotionNeeded()));
+
+            for(Move move : legalMoves) {
+                Moveable moveable = move.getDisplacement().getMoveable();
+                if(move.isPromotionNeeded()) { move.setPromotion(new Queen(Color.WHITE)); }
+
+                Undo undo = position.makeMove(move);
+                assertSame(move, undo.getMove());
+                assertEquals(Color.BLACK, position.getColorOnMove());
+                assertEquals(2, position.getMoveHistory().size());
+                assertSame(move, position.getLastMove());
+                assertEquals(1, position.getDisplacementCount(moveable));
+                assertNull(position.get(move.getDisplacement().getOldLocation()));
+                assertNull(move.getPositionAfter());
+                if(move.getCapturedEntity()!=null) { assertNull(position.getLocation(move.getCapturedEntity())); }
+                assertFalse(position.getLegalMoves().isEmpty());
+
+                position.unmakeMove(undo);
+                move.setPromotion(null);
+
+                assertEquals(Color.WHITE, position.getColorOnMove());
+                assertEquals(1, position.getMoveHistory().size());
+                assertEquals(0, position.getDisplacementCount(moveable));
+                assertEquals(moveables, position.getMoveables());
+                assertEquals(legalMoves, position.getLegalMoves());
+            }
+
+            Undo first = position.makeMove(legalMoves.stream().filter(m -> !m.isPromotionNeeded()).findFirst().get());
+            Undo second = position.makeMove(position.getLegalMoves().get(0));
+            assertThrows(IllegalStateException.class, () -> position.unmakeMove(first));
+            position.unmakeMove(second);
+            position.unmakeMove(first);
+            assertEquals(moveables, position.getMoveables());
+        }
+    }
+
+    @Test
+    public void testZobristKey() {
+        JChessGame game1 = JChessGame.newGame();
+        long initialKey = game1.getPosition().getZobristKey();
+        game1.play("Nf3", "Nf6", "Nc3", "Nc6");
+
+        JChessGame game2 = JChessGame.newGame(Representation.BITBOARD);
+        game2.play("Nc3", "Nc6", "Nf3", "Nf6");
+
+        Position pos1 = game1.getPosition();
+        Position pos2 = game2.getPosition();
+        assertEquals(pos1.getZobristKey(), pos2.getZobristKey());
+        assertEquals(pos1.hashCode(), pos2.hashCode());
+        assertNotEquals(initialKey, pos1.getZobristKey());
+
+        //same entities set up from scratch
+        Position pos3 = JChessGame.newEmptyGame(Color.WHITE).getPosition();
+        pos1.getMoveables().forEach((c,m) -> pos3.put(c, m instanceof Knight ? new Knight(m.getColor()) : m));
+        assertEquals(pos1.getZobristKey(), pos3.getZobristKey());
+
+        //color on move
+        pos3.switchColorOnMove();
+        assertNotEquals(pos1.getZobristKey(), pos3.getZobristKey());
+        pos3.switchColorOnMove();
+
+        //make/unmake
+        Undo undo = pos1.makeMove(pos1.getLegalMoves().get(0));
+        assertNotEquals(pos3.getZobristKey(), pos1.getZobristKey());
+        pos1.unmakeMove(undo);
+        assertEquals(pos3.getZobristKey(), pos1.getZobristKey());
+
+        //castling rights
+        game1.play("Rb1", "Rb8", "Ra1", "Ra8");
+        assertTrue(pos1.equals(game1.getPosition()));
+        assertNotEquals(pos1.getZobristKey(), game1.getPosition().getZobristKey());
+
+        //en-passant
+        JChessGame game4 = JChessGame.newGame();
+        game4.play("e4", "Nf6", "e5", "d5");
+        JChessGame game5 = JChessGame.newGame();
+        game5.play("e4", "d5", "e5", "Nf6");
+        assertTrue(game4.getPosition().equals(game5.getPosition()));
+        assertNotEquals(game4.getPosition().getZobristKey(), game5.getPosition().getZobristKey());
+    }
+
+    @Test
+    public void testRepetitionCount() {
+        JChessGame game = JChessGame.newGame();
+        assertEquals(0, game.getPosition().getRepetitionCount());
+
+        game.play("Nf3", "Nf6", "Ng1", "Ng8");
+        assertEquals(1, game.getPosition().getRepetitionCount());
+
+        game.play("Nf3");
+        assertEquals(1, game.getPosition().getRepetitionCount());
+
+        game.play("Nf6", "Ng1", "Ng8");
+        assertEquals(2, game.getPosition().getRepetitionCount());
+
+        //same entities but the black king cannot castle anymore
+        game.play("Nf3", "Nf6", "Ng1", "Rg8", "Nf3", "Rh8", "Ng1", "Ng8");
+        assertEquals(0, game.getPosition().getRepetitionCount());
+
+        //irreversible move
+        game.play("e4", "e5", "Ke2", "Ke7", "Ke1", "Ke8");
+        assertEquals(0, game.getPosition().getRepetitionCount());
+        game.play("Ke2", "Ke7", "Ke1", "Ke8");
+        assertEquals(1, game.getPosition().getRepetitionCount());
+    }
+
+    @Test
+    public void testSharedMoveHistory() {
+        JChessGame game = JChessGame.newGame();
+        game.play("e4", "e5", "Nf3");
+
+        Position position = game.getPosition();
+        List<Move> history = position.getMoveHistory();
+        assertEquals(3, history.size());
+        assertSame(position.getLastMove(), history.get(2));
+        assertEquals("e4", history.get(0).toString());
+        assertEquals("Nf3", history.get(history.size()-1).toString());
+        assertThrows(UnsupportedOperationException.class, () -> history.add(history.get(0)));
+        assertThrows(UnsupportedOperationException.class, () -> history.iterator().remove());
+
+        Position previous = position.getPreviousPosition();
+        assertEquals(history.subList(0, 2), previous.getMoveHistory());
+        assertEquals(List.copyOf(history), history);
+
+        game.play("Nc6");
+        assertEquals(3, history.size());
+        assertEquals(4, game.getPosition().getMoveHistory().size());
+
+        Undo undo = position.makeMove(position.getLegalMoves().get(0));
+        assertEquals(4, position.getMoveHistory().size());
+        position.unmakeMove(undo);
+        assertEquals(history, position.getMoveHistory());
+        assertEquals(0, JChessGame.newGame().getPosition().getMoveHistory().size());
+    }
+
+    @Test
+    public void testLegalMoveGenerator() {
+        String[] moves = ("e4 c5 Nc3 d6 Nf3 Nf6 h3 g6 d4 cxd4 Nxd4 Bg7 g3 Nc6 Be3 O-O Bg2 Nxd4 Bxd4 Be6 O-O a6 Re1 Rc8 "+
+                          "Nd5 Bxd5 exd5 Nd7 Bxg7 Kxg7 c3 Re8 Qd4+ Kg8 Re2 Qb6 Qh4 Ne5 Kh2 Kg7 Rd1 Rc4 Qg5 h6 Qd2 Rc7 "+
+                          "Rde1 Qb5 f4 Nc4 Qd4+ Kg8 b3 Nb6 c4 Qa5 f5 g5 f6 Nd7 fxe7 Ne5 c5 Ng6 cxd6 Rd7 Qf6 Qb6 Rf1 Nh8 "+
+                          "Re6 fxe6 Qf8+ Rxf8 exf8=Q+ Kh7 Be4+ Ng6").split(" ");
+
+        for(Representation representation : Representation.values()) {
+            JChessGame game = JChessGame.newGame(representation);
+
+            //the legacy validation is used with any custom rule manager
+            RuleManager customRules = new RuleManager() {};
+            Position customPosition = new Position(new Board(), customRules, Color.WHITE);
+            game.getPosition().getMoveables().forEach((c, m) -> customPosition.put(c, m));
+            JChessGame customGame = new JChessGame(customRules, customPosition, Status.NOT_FINISHED);
+
+            for(String move : moves) {
+                assertEquals(toStrings(customGame.getPosition()), toStrings(game.getPosition()), "Before "+move);
+                game.play(move);
+                customGame.play(move);
+            }
+            assertEquals(toStrings(customGame.getPosition()), toStrings(game.getPosition()));
+        }
+    }
+
+    @Test
+    public void testLegalMoveGeneratorChecksAndPins() {
+        //the king cannot walk away along the ray of the checking rook
+        JChessGame game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("e1", new King(Color.WHITE));
+        game.put("h1", new Rook(Color.WHITE));
+        game.put("e8", new Rook(Color.BLACK));
+        game.put("a8", new King(Color.BLACK));
+        assertEquals(Set.of("e1d1", "e1f1", "e1d2", "e1f2"), toStrings(game.getPosition()));
+
+        //the pinned knight cannot move and the bishop only along the pin
+        game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("e1", new King(Color.WHITE));
+        game.put("e2", new Knight(Color.WHITE));
+        game.put("e8", new Rook(Color.BLACK));
+        game.put("d2", new Bishop(Color.WHITE));
+        game.put("b4", new Bishop(Color.BLACK));
+        game.put("a8", new King(Color.BLACK));
+        assertEquals(Set.of("e1d1", "e1f1", "e1f2", "d2c3", "d2b4"), toStrings(game.getPosition()));
+
+        //en-passant would expose the king on its row
+        game = JChessGame.newEmptyGame(Color.BLACK);
+        game.put("a5", new King(Color.WHITE));
+        game.put("b5", new Pawn(Color.WHITE));
+        game.put("c7", new Pawn(Color.BLACK));
+        game.put("h5", new Rook(Color.BLACK));
+        game.put("h8", new King(Color.BLACK));
+        game.play("c5");
+        assertFalse(toStrings(game.getPosition()).contains("b5c6"));
+        assertTrue(toStrings(game.getPosition()).contains("b5b6"));
+
+        //the king cannot castle out of check
+        game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("e1", new King(Color.WHITE));
+        game.put("h1", new Rook(Color.WHITE));
+        game.put("e8", new Rook(Color.BLACK));
+        game.put("a8", new King(Color.BLACK));
+        assertFalse(toStrings(game.getPosition()).contains("e1g1"));
+        game.put("e8", null);
+        assertTrue(toStrings(game.getPosition()).contains("e1g1"));
+    }
+
+    @Test
+    public void testIndependentDisplacementCounts() {
+        JChessGame game = JChessGame.newGame();
+        game.play("e4", "e5", "Ke2", "Ke7");
+
+        Position position = game.getPosition();
+        Moveable king = position.get("e2");
+        Position first = position.apply(position.getLegalMoves().get(0));
+        Position second = position.apply(position.getLegalMoves().get(1));
+
+        first.increaseDisplacementCount(king, 1);
+        assertEquals(2, first.getDisplacementCount(king));
+        assertEquals(1, second.getDisplacementCount(king));
+        assertEquals(1, position.getDisplacementCount(king));
+    }
+
+    private static Set<String> toStrings(Position position) {
+        Set<String> moves = new HashSet<>();
+        for(Move move : position.getLegalMoves()) {
+            moves.add(move.getDisplacement().getOldLocation().toString()+move.getDisplacement().getNewLocation().toString());
+        }
+        return moves;
+    }
 }
@@ -49,6 +49,17 @@ public class PawnTest {
         assertThrows(InvalidMoveException.class, () -> game.play("exd3"));
     }
 
+    @Test
+    public void testEnPassantSinglePush() {
+        JChessGame game = JChessGame.newGame();
+        game.play("e4", "h6");
+        game.play("e5", "h5");
+        game.play("e6", "d6");
+
+        assertThrows(InvalidMoveException.class, () -> game.play("exd7"));
+        game.play("exf7+");
+    }
+
     @Test
     public void testPromotions() {
         JChessGame game = JChessGame.newGame();
@@ -0,0 +1,107 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Knight;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class BinaryGameReaderTest {
+    private static byte[] write(List<JChessGame> games) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try(BinaryGameWriter writer = new BinaryGameWriter(output)) {
+            for(JChessGame game : games) { writer.writeGame(game); }
+        }
+        return output.toByteArray();
+    }
+
+    private static List<String> getMoves(JChessGame game) {
+        return game.getPosition().getMoveHistory().stream().map(Move::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSameAsPGN() throws Exception {
+        String pgn = PGNResources.readPGNResource("Nakamura.zip");
+        List<JChessGame> games = PGNResources.readGames("Nakamura.zip", 200);
+
+        byte[] data = write(games);
+        try(BinaryGameReader reader = new BinaryGameReader(new ByteArrayInputStream(data))) {
+            Iterator<JChessGame> iterator = reader.gameIterator();
+            for(JChessGame expected : games) {
+                JChessGame game = iterator.next();
+                assertEquals(expected.getMetadata(), game.getMetadata());
+                assertEquals(expected.getStatus(), game.getStatus());
+                assertEquals(getMoves(expected), getMoves(game));
+                assertTrue(expected.getPosition().equals(game.getPosition()));
+            }
+            assertNull(reader.readGame());
+        }
+
+        //the moves take 2 bytes instead of 5-6 characters in PGN, the metadata are kept as is
+        int pgnLength = 0;
+        for(int i=0 ; i<200 ; ++i) { pgnLength = pgn.indexOf("[Event", pgnLength+1); }
+        assertTrue(data.length<pgnLength*2/3, data.length+" vs "+pgnLength);
+    }
+
+    @Test
+    public void testPromotions() throws Exception {
+        JChessGame game = JChessGame.newGame();
+        game.play("e4","d5","exd5","c6","dxc6","Nf6","cxb7","e6","bxa8=N","Bc5","Nf3","O-O","Nc7","Qe7+");
+        game.getMetadata().put("White", "Déjà \"Vu\"");
+
+        JChessGame empty = JChessGame.newGame();
+        empty.resign(Color.WHITE);
+
+        try(BinaryGameReader reader = new BinaryGameReader(new ByteArrayInputStream(write(List.of(game, empty))))) {
+            List<JChessGame> games = reader.games().collect(Collectors.toList());
+            assertEquals(2, games.size());
+            assertEquals(getMoves(game), getMoves(games.get(0)));
+            assertTrue(games.get(0).getPosition().get("c7") instanceof Knight);
+            assertEquals("Déjà \"Vu\"", games.get(0).getMetadata().get("White"));
+            assertEquals(Status.NOT_FINISHED, games.get(0).getStatus());
+            assertEquals(0, games.get(1).getPosition().getMoveHistory().size());
+            assertEquals(Status.WIN_BLACK, games.get(1).getStatus());
+        }
+
+        try(BinaryGameReader reader = new BinaryGameReader(new ByteArrayInputStream(new byte[0]))) {
+            assertNull(reader.readGame());
+        }
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        JChessGame game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("e1", new King(Color.WHITE));
+        game.put("e8", new King(Color.BLACK));
+        assertThrows(IllegalArgumentException.class, () -> write(List.of(game)));
+
+        try(BinaryGameReader reader = new BinaryGameReader(new ByteArrayInputStream("[Event \"?\"]".getBytes(StandardCharsets.US_ASCII)))) {
+            assertThrows(IOException.class, () -> reader.readGame());
+        }
+
+        //the move e2-e5 is not possible
+        byte[] data = write(List.of(JChessGame.newGame()));
+        byte[] corrupted = new byte[data.length+2];
+        System.arraycopy(data, 0, corrupted, 0, data.length);
+        corrupted[data.length-1] = 1;
+        int code = 12 | 36<<6;
+        corrupted[data.length] = (byte)(code>>8);
+        corrupted[data.length+1] = (byte)code;
+        try(BinaryGameReader reader = new BinaryGameReader(new ByteArrayInputStream(corrupted))) {
+            assertThrows(IOException.class, () -> reader.readGame());
+        }
+    }
+}
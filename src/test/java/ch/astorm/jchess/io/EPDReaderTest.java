@@ -0,0 +1,60 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.core.Position.Representation;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class EPDReaderTest {
+
+    @Test
+    public void testRead() throws IOException {
+        String epd = "r1b1k2r/ppppnppp/2n2q2/2b5/3NP3/2P1B3/PP3PPP/RN1QKB1R w KQkq - bm Nxc6 Nb3; id \"test; 1\";\n"+
+                     "\n"+
+                     "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 ;D1 20 ;D2 400 ;D3 8902\n"+
+                     "4k3/8/8/8/8/8/8/4K3 b - - hmvc 12; fmvn 40;";
+
+        try(EPDReader reader = new EPDReader(new StringReader(epd))) {
+            EPDRecord record = reader.readRecord();
+            assertEquals("r1b1k2r/ppppnppp/2n2q2/2b5/3NP3/2P1B3/PP3PPP/RN1QKB1R w KQkq - 0 1", record.getFEN());
+            assertEquals(Arrays.asList("Nxc6", "Nb3"), record.getOperation("bm"));
+            assertEquals("test; 1", record.getId());
+            assertEquals(1, record.getLineNumber());
+            assertNull(record.getOperation("am"));
+
+            record = reader.readRecord();
+            assertEquals(FEN.INITIAL_POSITION, record.getFEN());
+            assertEquals(Arrays.asList("D1", "D2", "D3"), record.getOperations().keySet().stream().collect(Collectors.toList()));
+            assertEquals(Arrays.asList("8902"), record.getOperation("D3"));
+            assertEquals(3, record.getLineNumber());
+            assertEquals("line 3", record.toString());
+
+            record = reader.readRecord();
+            assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 12 40", record.getFEN());
+            assertEquals(40, record.toPosition(Representation.MAP).getFullMoveNumber());
+
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        String epd = "4k3/8/8/8/8/8/8/4K3 w - - id \"a\";\n4k3/8/8/8/8/8/8/4K3 b - - id \"b\";\n";
+        try(EPDReader reader = new EPDReader(new StringReader(epd))) {
+            List<String> ids = reader.records().map(EPDRecord::getId).collect(Collectors.toList());
+            assertEquals(Arrays.asList("a", "b"), ids);
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IOException.class, () -> EPDReader.parse("4k3/8/8/8/8/8/8/4K3 w -", 1));
+        assertThrows(IOException.class, () -> EPDReader.parse("4k3/8/8/8/8/8/8/4K3 w - - id \"a;", 1));
+    }
+}
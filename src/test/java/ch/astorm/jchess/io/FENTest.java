@@ -0,0 +1,144 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.util.Perft;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class FENTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+    @Test
+    public void testInitialPosition() {
+        for(Representation representation : Representation.values()) {
+            JChessGame game = FEN.parseGame(FEN.INITIAL_POSITION, representation);
+            JChessGame expected = JChessGame.newGame(representation);
+            assertEquals(expected.getPosition(), game.getPosition());
+            assertEquals(expected.getPosition().getZobristKey(), game.getPosition().getZobristKey());
+            assertEquals(Status.NOT_FINISHED, game.getStatus());
+            assertEquals(FEN.INITIAL_POSITION, FEN.format(game.getPosition()));
+            assertEquals(FEN.INITIAL_POSITION, FEN.format(expected.getPosition()));
+        }
+    }
+
+    @Test
+    public void testPlayedPosition() {
+        JChessGame game = JChessGame.newGame();
+        game.play("e4", "d5", "e5", "f5");
+
+        String fen = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3";
+        assertEquals(fen, FEN.format(game.getPosition()));
+
+        for(Representation representation : Representation.values()) {
+            JChessGame parsed = FEN.parseGame(fen, representation);
+            assertEquals(game.getPosition().getZobristKey(), parsed.getPosition().getZobristKey());
+            assertEquals(game.getAvailableMoves().size(), parsed.getAvailableMoves().size());
+            assertEquals(3, parsed.getPosition().getFullMoveNumber());
+
+            parsed.play("exf6", "Nxf6", "Nf3", "Kf7");
+            assertEquals("rnbq1b1r/ppp1pkpp/5n2/3p4/8/5N2/PPPP1PPP/RNBQKB1R w KQ - 2 5", FEN.format(parsed.getPosition()));
+        }
+
+        //the en-passant square is not written if there is no pawn to take it
+        game.play("Nf3", "Nf6");
+        assertEquals("rnbqkb1r/ppp1p1pp/5n2/3pPp2/8/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 4", FEN.format(game.getPosition()));
+    }
+
+    @Test
+    public void testPerftPositions() {
+        for(Representation representation : Representation.values()) {
+            Position kiwipete = FEN.parsePosition(KIWIPETE, representation);
+            assertEquals(KIWIPETE, FEN.format(kiwipete));
+            assertEquals(48, Perft.count(kiwipete, 1));
+            assertEquals(2039, Perft.count(kiwipete, 2));
+
+            Position position4 = FEN.parsePosition(POSITION_4, representation);
+            assertEquals(POSITION_4, FEN.format(position4));
+            assertEquals(6, Perft.count(position4, 1));
+            assertEquals(264, Perft.count(position4, 2));
+            assertEquals(9467, Perft.count(position4, 3));
+
+            Position position5 = FEN.parsePosition(POSITION_5, representation);
+            assertEquals(POSITION_5, FEN.format(position5));
+            assertEquals(1, position5.getHalfMoveClock());
+            assertEquals(8, position5.getFullMoveNumber());
+            assertEquals(44, Perft.count(position5, 1));
+            assertEquals(1486, Perft.count(position5, 2));
+        }
+
+        Position kiwipete = FEN.parsePosition(KIWIPETE, Representation.BITBOARD);
+        assertEquals(97862, Perft.count(kiwipete, 3));
+    }
+
+    @Test
+    public void testInitialEnPassant() {
+        for(Representation representation : Representation.values()) {
+            //black has just played c7-c5
+            Position position = FEN.parsePosition("4k3/8/8/1PpP4/8/8/8/4K3 w - c6 0 1", representation);
+            assertEquals(Pawn.class, position.get("c5").getClass());
+            assertEquals("c5", position.getInitialEnPassant().toString());
+            assertEquals(9, position.getLegalMoves().size());
+            assertEquals(2, position.getLegalMoves().stream().filter(m -> m.getCapturedEntity()!=null).count());
+
+            //the en-passant capture is only available on the first move
+            JChessGame game = FEN.parseGame("4k3/8/8/1PpP4/8/8/8/4K3 w - c6 0 1", representation);
+            game.play("Kd1", "Kd8");
+            assertEquals(7, game.getAvailableMoves().size());
+            assertEquals("3k4/8/8/1PpP4/8/8/8/3K4 w - - 2 2", FEN.format(game.getPosition()));
+        }
+    }
+
+    @Test
+    public void testOptionalCounters() {
+        Position position = FEN.parsePosition("4k3/8/8/8/8/8/8/4K2R b K -");
+        assertEquals(Color.BLACK, position.getColorOnMove());
+        assertTrue(position.canCastle(Color.WHITE, true));
+        assertFalse(position.canCastle(Color.WHITE, false));
+        assertFalse(position.canCastle(Color.BLACK, true));
+        assertEquals("4k3/8/8/8/8/8/8/4K2R b K - 0 1", FEN.format(position));
+    }
+
+    @Test
+    public void testMate() {
+        JChessGame game = FEN.parseGame("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1");
+        assertEquals(Status.WIN_WHITE, game.getStatus());
+        assertEquals(King.class, game.getPosition().get("h8").getClass());
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition(""));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4K3"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4K3 x - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k4/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4X3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4KK2 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("P3k3/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4K3 w K - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/3K3R w K - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4K2R w KK - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4K3 w - e6 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4K3 w - - x 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/4K3 w - - 0 1 2"));
+
+        //illegal positions
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("8/8/8/8/8/8/8/8 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("8/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/8/8 b - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/4Q3/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> FEN.parsePosition("4k3/8/8/8/8/8/3p4/4K3 b - - 0 1"));
+        assertEquals(Color.BLACK, FEN.parsePosition("4k3/4Q3/8/8/8/8/8/4K3 b - - 0 1").getColorOnMove());
+    }
+}
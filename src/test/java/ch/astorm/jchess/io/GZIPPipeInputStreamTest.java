@@ -0,0 +1,142 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class GZIPPipeInputStreamTest {
+    private static String toPGN(List<JChessGame> games) {
+        StringWriter output = new StringWriter();
+        try(PGNWriter writer = new PGNWriter(output)) {
+            games.forEach(writer::writeGame);
+        }
+        return output.toString();
+    }
+
+    @Test
+    public void testMultiMemberPGN() throws IOException {
+        List<JChessGame> games = PGNResources.readGames("Nakamura.zip", 300);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try(MultiMemberGZIPOutputStream output = new MultiMemberGZIPOutputStream(data);
+            PGNWriter writer = new PGNWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for(int i=0 ; i<games.size() ; ++i) {
+                writer.writeGame(games.get(i));
+                if(i%100==99) {
+                    writer.flush();
+                    output.finishMember();
+                }
+            }
+            writer.flush();
+            output.finishMember();
+            output.finishMember();
+            assertEquals(3, output.getMemberCount());
+        }
+
+        //small buffers to go through the queue many times
+        String expected = toPGN(games);
+        try(PGNReader reader = new PGNReader(new InputStreamReader(new GZIPPipeInputStream(new ByteArrayInputStream(data.toByteArray()), 512, 2), StandardCharsets.UTF_8))) {
+            List<JChessGame> read = reader.games().collect(Collectors.toList());
+            assertEquals(expected, toPGN(read));
+        }
+
+        //the members can be read by the JDK
+        try(InputStream input = new GZIPInputStream(new ByteArrayInputStream(data.toByteArray()))) {
+            assertEquals(expected, new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testConcatenation() throws IOException {
+        byte[] first = "first ".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for(byte[] shard : Arrays.asList(first, second)) {
+            try(MultiMemberGZIPOutputStream output = new MultiMemberGZIPOutputStream(data, 9, 64)) {
+                output.write(shard);
+            }
+        }
+
+        try(GZIPPipeInputStream input = new GZIPPipeInputStream(new ByteArrayInputStream(data.toByteArray()))) {
+            assertArrayEquals("first second".getBytes(StandardCharsets.UTF_8), input.readAllBytes());
+            assertEquals(-1, input.read());
+        }
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+        try(GZIPPipeInputStream input = new GZIPPipeInputStream(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 }))) {
+            assertThrows(IOException.class, () -> input.read());
+        }
+
+        byte[] large = new byte[1<<20];
+        new Random(42).nextBytes(large);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try(MultiMemberGZIPOutputStream output = new MultiMemberGZIPOutputStream(data)) {
+            output.write(large);
+        }
+
+        //a truncated stream is not mistaken for the end of the stream
+        byte[] truncated = Arrays.copyOf(data.toByteArray(), data.size()/2);
+        try(GZIPPipeInputStream input = new GZIPPipeInputStream(new ByteArrayInputStream(truncated), 1024, 2)) {
+            byte[] buffer = new byte[1024];
+            assertThrows(IOException.class, () -> { while(input.read(buffer)>=0) {} });
+            assertThrows(IOException.class, () -> input.read());
+            assertThrows(IOException.class, () -> input.read(buffer));
+            assertThrows(IOException.class, () -> input.available());
+        }
+
+        //the decompression is stopped on close
+        GZIPPipeInputStream input = new GZIPPipeInputStream(new ByteArrayInputStream(data.toByteArray()), 1024, 1);
+        input.read();
+        input.close();
+        assertThrows(IOException.class, () -> input.read());
+
+        assertThrows(IllegalArgumentException.class, () -> new MultiMemberGZIPOutputStream(data, 10, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new GZIPPipeInputStream(new ByteArrayInputStream(new byte[0]), 0, 1));
+    }
+
+    @Test
+    public void testCloseBlockedSource() throws IOException {
+        //source that is neither interrupted nor unblocked by close, as a pipe
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream blocking = new InputStream() {
+            @Override
+            public int read() {
+                while(true) {
+                    try {
+                        release.await();
+                        return -1;
+                    } catch(InterruptedException ie) {
+                        /* ignored */
+                    }
+                }
+            }
+        };
+
+        GZIPPipeInputStream input = new GZIPPipeInputStream(blocking);
+        long start = System.nanoTime();
+        input.close();
+        assertTrue(System.nanoTime()-start<TimeUnit.SECONDS.toNanos(10));
+        release.countDown();
+    }
+}
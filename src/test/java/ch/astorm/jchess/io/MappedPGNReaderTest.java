@@ -0,0 +1,146 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.io.MappedPGNReader.Header;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedPGNReaderTest {
+    @TempDir
+    Path tempDir;
+
+    private Path write(String pgn) throws Exception {
+        Path file = tempDir.resolve("games.pgn");
+        Files.write(file, pgn.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testMultipleGames() throws Exception {
+        String pgn =    "[Event \"Wch U20\"]\n" +
+                        "[White \"Anand, Viswanathan\"]\n" +
+                        "[Black \"Wolff, Patrick G\"]\n" +
+                        "\n" +
+                        "1.e4 d6 2.d4  0-1\n\n" +
+                        "[Event \"Wch U20\"]\r\n" +
+                        "[White \"Déjà, Vu\"]\r\n" +
+                        "\r\n" +
+                        "1. e4 d6\r\n" +
+                        "2. d4  1-0\r\n\r\n" +
+                        "1.e4 d6 2.d4 *";
+
+        try(MappedPGNReader reader = new MappedPGNReader(write(pgn))) {
+            assertTrue(reader.nextGame());
+            assertEquals(0, reader.getGameOffset());
+            assertEquals("Anand, Viswanathan", reader.getMetadata("White"));
+            assertEquals("Wolff, Patrick G", reader.getMetadata("Black"));
+            assertNull(reader.getMetadata("Whit"));
+            assertNull(reader.getMetadata("Result"));
+            assertEquals(Status.WIN_BLACK, reader.getGame().getStatus());
+
+            assertTrue(reader.nextGame());
+            assertEquals(pgn.indexOf("[Event", 1), reader.getGameOffset());
+            assertEquals("Déjà, Vu", reader.getMetadata("White"));
+            assertEquals(2, reader.getMetadata().size());
+            JChessGame game = reader.getGame();
+            assertEquals(Status.WIN_WHITE, game.getStatus());
+            assertEquals(3, game.getPosition().getMoveHistory().size());
+
+            assertTrue(reader.nextGame());
+            assertTrue(reader.getMetadata().isEmpty());
+            assertEquals(Status.NOT_FINISHED, reader.getGame().getStatus());
+
+            assertFalse(reader.nextGame());
+            assertThrows(IllegalStateException.class, () -> reader.getMetadata("White"));
+            assertNull(reader.readGame());
+        }
+    }
+
+    @Test
+    public void testAnnotatedGame() throws Exception {
+        String pgn =    "[Event \"Wch U20\"]\n" +
+                        "\n" +
+                        "1.e4 {the king's pawn\n" +
+                        "[with a bracket]} e5!? (1...c5 2.Nf3 (2.c3) 2...d6) 2.Nf3 $1\n" +
+                        "2...Nc6 3.Bb5 a6 1-0\n";
+        try(MappedPGNReader reader = new MappedPGNReader(write(pgn))) {
+            JChessGame game = reader.readGame();
+            assertEquals(Status.WIN_WHITE, game.getStatus());
+            assertEquals(6, game.getPosition().getMoveHistory().size());
+            assertNull(reader.readGame());
+        }
+    }
+
+    @Test
+    public void testHeaders() throws Exception {
+        StringBuilder pgn = new StringBuilder();
+        for(int i=0 ; i<10 ; ++i) {
+            pgn.append("[Event \"Game ").append(i).append("\"]\n");
+            pgn.append("[White \"").append(i%2==0 ? "Anand" : "Carlsen").append("\"]\n\n");
+            pgn.append("1.e4 e5 2.Nf3 {Nc3 (2.Nc3)} Nc6 ").append(i%2==0 ? "1-0" : "0-1").append("\n\n");
+        }
+
+        try(MappedPGNReader reader = new MappedPGNReader(write(pgn.toString()), StandardCharsets.UTF_8, 64)) {
+            List<Header> headers = reader.headers().filter(h -> h.getMetadata().get("White").equals("Carlsen")).collect(Collectors.toList());
+            assertEquals(5, headers.size());
+            assertEquals("Game 3", headers.get(1).getMetadata().get("Event"));
+            assertEquals(pgn.indexOf("[Event \"Game 3\"]"), headers.get(1).getOffset());
+            assertFalse(reader.nextGame());
+
+            reader.seek(headers.get(1).getOffset());
+            JChessGame game = reader.readGame();
+            assertEquals("Game 3", game.getMetadata().get("Event"));
+            assertEquals(Status.WIN_BLACK, game.getStatus());
+            assertEquals("Game 4", reader.headers().findFirst().get().getMetadata().get("Event"));
+
+            assertThrows(IllegalArgumentException.class, () -> reader.seek(-1));
+        }
+    }
+
+    @Test
+    public void testSmallWindow() throws Exception {
+        String moves = "1.e4 e5 2.Nf3 Nc6 3.Bb5 a6 4.Ba4 Nf6 5.O-O Be7 6.Re1 b5 7.Bb3 d6 8.c3 O-O 1/2-1/2\n\n";
+        StringBuilder pgn = new StringBuilder();
+        for(int i=0 ; i<20 ; ++i) { pgn.append("[Event \"Game ").append(i).append("\"]\n\n").append(moves); }
+
+        //the games are bigger than the window
+        try(MappedPGNReader reader = new MappedPGNReader(write(pgn.toString()), StandardCharsets.UTF_8, 32)) {
+            for(int i=0 ; i<20 ; ++i) {
+                assertTrue(reader.nextGame());
+                assertEquals("Game "+i, reader.getMetadata("Event"));
+                assertEquals(16, reader.getGame().getPosition().getMoveHistory().size());
+            }
+            assertFalse(reader.nextGame());
+        }
+    }
+
+    @Test
+    public void testSameAsPGNReader() throws Exception {
+        String pgn = PGNResources.readPGNResource("Nakamura.zip");
+        Path file = tempDir.resolve("Nakamura.pgn");
+        Files.write(file, pgn.getBytes(StandardCharsets.ISO_8859_1));
+
+        try(PGNReader pgnReader = new PGNReader(new StringReader(pgn));
+            MappedPGNReader mappedReader = new MappedPGNReader(file, StandardCharsets.ISO_8859_1, 4096)) {
+            for(int i=0 ; i<50 ; ++i) {
+                JChessGame expected = pgnReader.readGame();
+                JChessGame game = mappedReader.readGame();
+                assertEquals(expected.getMetadata(), game.getMetadata());
+                assertEquals(expected.getStatus(), game.getStatus());
+                assertTrue(expected.getPosition().equals(game.getPosition()));
+            }
+        }
+    }
+}
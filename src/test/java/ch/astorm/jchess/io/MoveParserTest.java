@@ -6,13 +6,19 @@ import ch.astorm.jchess.JChessGame.Status;
 import ch.astorm.jchess.core.Color;
 import ch.astorm.jchess.core.Move;
 import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
 import ch.astorm.jchess.core.entities.Bishop;
 import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Knight;
 import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
 import ch.astorm.jchess.io.MoveParser.InvalidMoveException;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 
 public class MoveParserTest {
@@ -109,6 +115,106 @@ public class MoveParserTest {
         assertThrows(IllegalArgumentException.class, () -> game.play("Kb9"));
     }
     
+    @Test
+    public void testTrustedMove() {
+        JChessGame game = JChessGame.newGame();
+        for(String move : new String[] {"e4","d5","exd5","c5","dxc6","Nf6","cxb7","e6","bxa8=N","Bc5","Nf3","O-O"}) { game.playTrusted(move); }
+        assertEquals(Status.NOT_FINISHED, game.updateStatus());
+        assertTrue(game.getPosition().get("a8") instanceof Knight);
+        assertTrue(game.getPosition().get("g8") instanceof King);
+        assertEquals(Color.WHITE, game.getColorOnMove());
+
+        JChessGame expected = JChessGame.newGame();
+        expected.play("e4","d5","exd5","c5","dxc6","Nf6","cxb7","e6","bxa8=N","Bc5","Nf3","O-O");
+        assertTrue(expected.getPosition().equals(game.getPosition()));
+
+        assertThrows(InvalidMoveException.class, () -> game.playTrusted("Ke3"));
+        assertThrows(IllegalArgumentException.class, () -> game.playTrusted("Kz3"));
+    }
+
+    @Test
+    public void testTrustedMovePinned() {
+        JChessGame game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("e1", new King(Color.WHITE));
+        game.put("e2", new Knight(Color.WHITE));
+        game.put("c2", new Knight(Color.WHITE));
+        game.put("e8", new Rook(Color.BLACK));
+        game.put("a8", new King(Color.BLACK));
+
+        //the knight in e2 is pinned, hence Nd4 is not ambiguous
+        game.playTrusted("Nd4");
+        assertTrue(game.getPosition().get("d4") instanceof Knight);
+        assertTrue(game.getPosition().get("e2") instanceof Knight);
+
+        game.playTrusted("Rh8");
+        assertThrows(InvalidMoveException.class, () -> game.playTrusted("Ng8"));
+        game.playTrusted("Nf4");
+        assertNull(game.getPosition().get("e2"));
+        assertEquals(Status.NOT_FINISHED, game.updateStatus());
+    }
+
+    @Test
+    public void testLegalMovePinned() {
+        JChessGame game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("e1", new King(Color.WHITE));
+        game.put("e2", new Knight(Color.WHITE));
+        game.put("c2", new Knight(Color.WHITE));
+        game.put("b7", new Pawn(Color.WHITE));
+        game.put("e8", new Rook(Color.BLACK));
+        game.put("a8", new King(Color.BLACK));
+        game.put("c8", new Bishop(Color.BLACK));
+
+        MoveParser parser = new MoveParser(game);
+        Move move = parser.getMove("Nd4");
+        assertEquals("c2", move.getDisplacement().getOldLocation().toString());
+        assertThrows(InvalidMoveException.class, () -> parser.getMove("Nxd4"));
+        assertThrows(InvalidMoveException.class, () -> parser.getMove("Nf4"));
+
+        Move promotion = parser.getMove("bxc8=R");
+        assertTrue(promotion.getPromotion() instanceof Rook);
+        assertEquals(Color.WHITE, promotion.getPromotion().getColor());
+        assertThrows(InvalidMoveException.class, () -> parser.getMove("b8=K"));
+        assertThrows(InvalidMoveException.class, () -> parser.getMove("b8=P"));
+    }
+
+    @Test
+    public void testMoveString() {
+        JChessGame game = JChessGame.newGame();
+        for(String move : new String[] {"f3","e5","g4","Qh4"}) { game.play(move); }
+        assertEquals("Qh4#", game.getPosition().getLastMove().toString());
+
+        //discovered check
+        game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("a1", new King(Color.WHITE));
+        game.put("e1", new Rook(Color.WHITE));
+        game.put("e4", new Knight(Color.WHITE));
+        game.put("g4", new Knight(Color.WHITE));
+        game.put("e8", new King(Color.BLACK));
+        game.play("Nef6");
+        StringBuilder builder = new StringBuilder("1.");
+        MoveParser.appendMoveString(game.getPosition().getLastMove(), builder);
+        assertEquals("1.Nef6+", builder.toString());
+
+        //check given by the rook of the castling
+        game = JChessGame.newEmptyGame(Color.WHITE);
+        game.put("e1", new King(Color.WHITE));
+        game.put("h1", new Rook(Color.WHITE));
+        game.put("f8", new King(Color.BLACK));
+        game.play("O-O+");
+        assertEquals("O-O+", game.getPosition().getLastMove().toString());
+
+        //discovered check by the en passant capture
+        game = JChessGame.newEmptyGame(Color.BLACK);
+        game.put("a1", new King(Color.WHITE));
+        game.put("a5", new Rook(Color.WHITE));
+        game.put("e5", new Pawn(Color.WHITE));
+        game.put("d7", new Pawn(Color.BLACK));
+        game.put("h5", new King(Color.BLACK));
+        game.play("d5");
+        game.play("exd6");
+        assertEquals("exd6+", game.getPosition().getLastMove().toString());
+    }
+
     @Test
     public void testNoKingMove() {
         JChessGame game = JChessGame.newEmptyGame(Color.WHITE);
@@ -121,4 +227,31 @@ public class MoveParserTest {
         assertEquals("e8", legalMoves.get(0).toString());
         assertEquals("a2", legalMoves.get(1).toString());
     }
+
+    @Test
+    public void testMoveStringDisambiguation() {
+        for(Representation representation : Representation.values()) {
+            JChessGame game = JChessGame.newEmptyGame(Color.WHITE, representation);
+            game.put("a3", new King(Color.WHITE));
+            game.put("e1", new Queen(Color.WHITE));
+            game.put("h1", new Queen(Color.WHITE));
+            game.put("h4", new Queen(Color.WHITE));
+            game.put("b8", new King(Color.BLACK));
+
+            assertEquals("Q4e4", getMoveString(game.getPosition(), "h4", "e4"));
+            assertEquals("Qh1e4", getMoveString(game.getPosition(), "h1", "e4"));
+            assertEquals("Qee4", getMoveString(game.getPosition(), "e1", "e4"));
+            assertEquals("Q1h2", getMoveString(game.getPosition(), "h1", "h2"));
+            assertEquals("Qh5", getMoveString(game.getPosition(), "h4", "h5"));
+        }
+    }
+
+    private static String getMoveString(Position position, String from, String to) {
+        for(Move move : position.getLegalMoves()) {
+            if(move.getDisplacement().getOldLocation().toString().equals(from) && move.getDisplacement().getNewLocation().toString().equals(to)) {
+                return move.toString();
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,63 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class PGNChannelWriterTest {
+    private static byte[] writeGames(List<JChessGame> games, Charset charset) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try(PGNWriter writer = new PGNWriter(new OutputStreamWriter(output, charset))) {
+            games.forEach(writer::writeGame);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] writeGames(List<JChessGame> games, Charset charset, int bufferSize) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try(PGNChannelWriter writer = new PGNChannelWriter(Channels.newChannel(output), charset, bufferSize)) {
+            for(JChessGame game : games) { writer.writeGame(game); }
+        }
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testSameAsPGNWriter() throws Exception {
+        List<JChessGame> games = PGNResources.readGames("Nakamura.zip", 100);
+
+        JChessGame game = JChessGame.newGame();
+        game.getMetadata().put("White", "Déjà \"Vu\" ♚");
+        game.play("e4", "e5");
+        games.add(game);
+
+        for(Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII }) {
+            byte[] expected = writeGames(games, charset);
+            assertArrayEquals(expected, writeGames(games, charset, 16));
+            assertArrayEquals(expected, writeGames(games, charset, PGNChannelWriter.DEFAULT_BUFFER_SIZE));
+        }
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        JChessGame game = JChessGame.newGame();
+        game.play("e4", "e5");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try(PGNChannelWriter writer = new PGNChannelWriter(Channels.newChannel(output))) {
+            writer.writeGame(game);
+            assertEquals(0, output.size());
+            writer.flush();
+            assertEquals(new String(writeGames(List.of(game), StandardCharsets.UTF_8), StandardCharsets.UTF_8), output.toString(StandardCharsets.UTF_8));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new PGNChannelWriter(Channels.newChannel(output), StandardCharsets.UTF_8, 8));
+    }
+}
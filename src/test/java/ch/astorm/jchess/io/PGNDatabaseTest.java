@@ -0,0 +1,119 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PGNDatabaseTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        String pgn = PGNResources.readPGNResource("Nakamura.zip");
+        int end = 0;
+        for(int i=0 ; i<100 ; ++i) { end = pgn.indexOf("[Event", end+1); }
+        pgn = pgn.substring(0, end);
+
+        Path file = tempDir.resolve("Nakamura.pgn");
+        Files.write(file, pgn.getBytes(StandardCharsets.ISO_8859_1));
+
+        List<JChessGame> expected = new ArrayList<>();
+        try(PGNReader reader = new PGNReader(new StringReader(pgn))) {
+            JChessGame game = reader.readGame();
+            while(game!=null) {
+                expected.add(game);
+                game = reader.readGame();
+            }
+        }
+
+        try(PGNDatabase database = new PGNDatabase(file, StandardCharsets.ISO_8859_1, PGNDatabase.DEFAULT_INDEXED_METADATA, 4096)) {
+            assertEquals(100, database.size());
+            assertEquals(0, database.getOffset(0));
+            assertEquals(pgn.indexOf("[Event", 1), database.getLength(0));
+            assertEquals(pgn.length(), database.getOffset(99)+database.getLength(99));
+
+            for(int i=0 ; i<100 ; ++i) {
+                for(String key : PGNDatabase.DEFAULT_INDEXED_METADATA) { assertEquals(expected.get(i).getMetadata().get(key), database.getMetadata(i, key)); }
+            }
+
+            JChessGame game = database.getGame(42);
+            assertEquals(expected.get(42).getMetadata(), game.getMetadata());
+            assertTrue(expected.get(42).getPosition().equals(game.getPosition()));
+
+            List<JChessGame> games = database.getGames(97, 100);
+            assertEquals(3, games.size());
+            for(int i=0 ; i<3 ; ++i) { assertEquals(expected.get(97+i).getMetadata(), games.get(i).getMetadata()); }
+            assertTrue(database.getGames(5, 5).isEmpty());
+
+            assertThrows(IllegalArgumentException.class, () -> database.getMetadata(0, "Site"));
+            assertThrows(IndexOutOfBoundsException.class, () -> database.getGame(100));
+            assertThrows(IndexOutOfBoundsException.class, () -> database.getGames(10, 5));
+        }
+
+        //the temporary files are removed once the index is written
+        try(Stream<Path> files = Files.list(tempDir)) { assertEquals(2, files.count()); }
+
+        //the index is reused as long as the file is not modified
+        Path indexFile = PGNDatabase.getIndexPath(file);
+        FileTime indexTime = Files.getLastModifiedTime(indexFile);
+        try(PGNDatabase database = new PGNDatabase(file, StandardCharsets.ISO_8859_1, PGNDatabase.DEFAULT_INDEXED_METADATA)) { assertEquals(100, database.size()); }
+        assertEquals(indexTime, Files.getLastModifiedTime(indexFile));
+
+        Files.write(file, "[Event \"Single\"]\n\n1.e4 e5 *\n".getBytes(StandardCharsets.ISO_8859_1));
+        try(PGNDatabase database = new PGNDatabase(file, StandardCharsets.ISO_8859_1, List.of("Event", "Site"))) {
+            assertEquals(1, database.size());
+            assertEquals("Single", database.getMetadata(0, "Event"));
+            assertNull(database.getMetadata(0, "Site"));
+            assertEquals(2, database.getGame(0).getPosition().getMoveHistory().size());
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        Path file = tempDir.resolve("empty.pgn");
+        Files.write(file, new byte[0]);
+        Files.write(PGNDatabase.getIndexPath(file), "invalid".getBytes(StandardCharsets.US_ASCII));
+
+        try(PGNDatabase database = new PGNDatabase(file)) {
+            assertEquals(0, database.size());
+            assertTrue(database.getGames(0, 0).isEmpty());
+        }
+    }
+
+    @Test
+    public void testCorruptIndex() throws Exception {
+        Path file = tempDir.resolve("single.pgn");
+        Files.write(file, "[Event \"Single\"]\n\n1.e4 e5 *\n".getBytes(StandardCharsets.ISO_8859_1));
+        try(PGNDatabase database = new PGNDatabase(file)) { assertEquals(1, database.size()); }
+
+        Path indexFile = PGNDatabase.getIndexPath(file);
+        byte[] index = Files.readAllBytes(indexFile);
+
+        //keys section truncated in the middle of a key
+        Files.write(indexFile, Arrays.copyOf(index, 48));
+        try(PGNDatabase database = new PGNDatabase(file)) { assertEquals("Single", database.getMetadata(0, "Event")); }
+        assertArrayEquals(index, Files.readAllBytes(indexFile));
+
+        //negative key length
+        byte[] corrupt = index.clone();
+        Arrays.fill(corrupt, 42, 46, (byte)0xFF);
+        Files.write(indexFile, corrupt);
+        try(PGNDatabase database = new PGNDatabase(file)) { assertEquals("Single", database.getMetadata(0, "Event")); }
+        assertArrayEquals(index, Files.readAllBytes(indexFile));
+    }
+}
@@ -75,5 +75,14 @@ public class PGNReadWriteTest {
         assertTrue(parsed.getPosition().equals(parsed2.getPosition()), "Resulting positions are not the same");
         assertEquals(parsed.getStatus(), parsed2.getStatus());
         assertTrue(parsed.getMetadata().equals(parsed2.getMetadata()));
+
+        JChessGame trusted;
+        try(PGNReader reader = new PGNReader(new StringReader(sw.toString()))) {
+            reader.setTrusted(true);
+            trusted = reader.readGame();
+        }
+
+        assertTrue(parsed.getPosition().equals(trusted.getPosition()), "Resulting trusted positions are not the same");
+        assertEquals(parsed.getStatus(), trusted.getStatus());
     }
 }
@@ -3,12 +3,20 @@ package ch.astorm.jchess.io;
 
 import ch.astorm.jchess.JChessGame;
 import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.core.entities.King;
 import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.core.entities.Rook;
 import ch.astorm.jchess.io.PGNReader.PGNReaderException;
 import java.io.StringReader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -36,6 +44,22 @@ public class PGNReaderTest {
         }
     }
 
+    @Test
+    public void testZeroCastling() throws Exception {
+        String pgn =    "1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5 4.0-0 Nf6 5.d3 d6 6.Bg5 Qe7 7.Nc3 Bd7 8.Qd2 0-0-0 1/2-1/2";
+        for(boolean trusted : new boolean[] { false, true }) {
+            try(PGNReader parser = new PGNReader(new StringReader(pgn))) {
+                parser.setTrusted(trusted);
+                JChessGame game = parser.readGame();
+                assertEquals(Status.DRAW, game.getStatus());
+                assertEquals(King.class, game.getPosition().get("g1").getClass());
+                assertEquals(Rook.class, game.getPosition().get("f1").getClass());
+                assertEquals(King.class, game.getPosition().get("c8").getClass());
+                assertEquals(Rook.class, game.getPosition().get("d8").getClass());
+            }
+        }
+    }
+
     @Test
     public void testMuptileValidPGN() throws Exception {
         String pgn =    "[Event \"Wch U20\"]\n" +
@@ -76,6 +100,67 @@ public class PGNReaderTest {
         }
     }
 
+    @Test
+    public void testAnnotatedPGN() throws Exception {
+        String pgn =    "[Event \"Wch U20\"]\n" +
+                        "\n" +
+                        "1.e4 {the king's pawn, 2.d4 would\n" +
+                        "1.d4 be another start} e5!? (1...c5 2.Nf3 (2.c3) 2...d6) 2.Nf3 $1 ; 2.f4 is sharper\n" +
+                        "2...Nc6 3.Bb5 a6 1/2-1/2\n\n" +
+                        "[Event \"Wch U20\"]\n" +
+                        "\n" +
+                        "1.e4 d6 2.d4  0-1";
+        try(PGNReader parser = new PGNReader(new StringReader(pgn))) {
+            JChessGame game = parser.readGame();
+            assertEquals(Status.DRAW, game.getStatus());
+            assertEquals(6, game.getPosition().getMoveHistory().size());
+            assertTrue(game.getPosition().get("a6") instanceof Pawn);
+
+            JChessGame game2 = parser.readGame();
+            assertEquals(Status.WIN_BLACK, game2.getStatus());
+            assertNull(parser.readGame());
+        }
+    }
+
+    @Test
+    public void testGamesStream() throws Exception {
+        String pgn =    "[Event \"Game 1\"]\n" +
+                        "\n" +
+                        "1.e4 d6 2.d4  0-1\n\n" +
+                        "[Event \"Game 2\"]\n" +
+                        "\n" +
+                        "1.e4 d6 2.d4  1-0\n\n" +
+                        "[Event \"Game 3\"]\n" +
+                        "\n" +
+                        "1.e4 d6 2.d4  1/2-1/2";
+        try(PGNReader parser = new PGNReader(new StringReader(pgn))) {
+            List<Status> statuses = parser.games().map(JChessGame::getStatus).collect(Collectors.toList());
+            assertEquals(List.of(Status.WIN_BLACK, Status.WIN_WHITE, Status.DRAW), statuses);
+        }
+
+        //the stream stops reading once the game has been found
+        try(PGNReader parser = new PGNReader(new StringReader(pgn+"\n\n1.e4 e5 2.Ke3  1-0"))) {
+            JChessGame game = parser.games().filter(g -> g.getStatus()==Status.WIN_WHITE).findFirst().get();
+            assertEquals("Game 2", game.getMetadata().get("Event"));
+            assertEquals("Game 3", parser.readGame().getMetadata().get("Event"));
+        }
+    }
+
+    @Test
+    public void testGameIterator() throws Exception {
+        String pgn =    "1.e4 d6 2.d4  0-1\n\n" +
+                        "1.e4 d6 2.d4  1-0";
+        try(PGNReader parser = new PGNReader(new StringReader(pgn))) {
+            Iterator<JChessGame> iterator = parser.gameIterator();
+            assertTrue(iterator.hasNext());
+            assertTrue(iterator.hasNext());
+            assertEquals(Status.WIN_BLACK, iterator.next().getStatus());
+            assertEquals(Status.WIN_WHITE, iterator.next().getStatus());
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, () -> iterator.next());
+        }
+    }
+
     @Test
     public void testInvalidPGN() throws Exception {
         String pgn =    "[Event \"Wch U20\"]\n" +
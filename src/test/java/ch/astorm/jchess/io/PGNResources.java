@@ -0,0 +1,48 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the zipped PGN files of the test resources.
+ */
+class PGNResources {
+    private PGNResources() {}
+
+    /**
+     * Returns the content of the PGN file zipped in {@code resource}.
+     * <p>The content is decoded in ISO-8859-1, so each char maps to one byte and the
+     * content can be written back to a file with the same offsets.</p>
+     *
+     * @param resource The name of the zip file (eg 'Nakamura.zip').
+     * @return The PGN content.
+     */
+    static String readPGNResource(String resource) throws IOException {
+        try(InputStream input = PGNResources.class.getResourceAsStream(resource);
+            ZipInputStream zis = new ZipInputStream(input)) {
+            zis.getNextEntry();
+            return new String(zis.readAllBytes(), StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Returns the first {@code nbGames} games of the PGN file zipped in {@code resource}.
+     *
+     * @param resource The name of the zip file (eg 'Nakamura.zip').
+     * @param nbGames The number of games to read.
+     * @return The games.
+     */
+    static List<JChessGame> readGames(String resource, int nbGames) throws IOException {
+        List<JChessGame> games = new ArrayList<>(nbGames);
+        try(PGNReader reader = new PGNReader(new StringReader(readPGNResource(resource)))) {
+            for(int i=0 ; i<nbGames ; ++i) { games.add(reader.readGame()); }
+        }
+        return games;
+    }
+}
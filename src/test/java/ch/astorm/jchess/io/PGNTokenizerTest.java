@@ -0,0 +1,68 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.io.PGNTokenizer.TokenType;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class PGNTokenizerTest {
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        PGNTokenizer tokenizer = new PGNTokenizer(text);
+        TokenType type = tokenizer.next();
+        while(type!=null) {
+            tokens.add(type+":"+tokenizer.getToken());
+            type = tokenizer.next();
+        }
+        return tokens;
+    }
+
+    @Test
+    public void testBasicMoves() {
+        assertEquals(List.of("MOVE_NUMBER:1.", "MOVE:e4", "MOVE:d6", "MOVE_NUMBER:2.", "MOVE:d4", "RESULT:0-1"), tokenize("1.e4 d6 2.d4  0-1"));
+        assertEquals(List.of("MOVE_NUMBER:1.", "MOVE:e4", "MOVE_NUMBER:1...", "MOVE:e5", "RESULT:1/2-1/2"), tokenize("1. e4 1... e5 1/2-1/2"));
+        assertEquals(List.of("MOVE_NUMBER:12.", "MOVE:O-O-O", "MOVE:exd8=Q+", "RESULT:*"), tokenize("12.O-O-O exd8=Q+ *"));
+        assertEquals(List.of("MOVE:0-0", "MOVE:Qh4#", "RESULT:1-0"), tokenize("0-0 Qh4#\n1-0"));
+        assertEquals(List.of("MOVE:e4", "RESULT:1-1"), tokenize("e4 1-1"));
+    }
+
+    @Test
+    public void testAnnotations() {
+        assertEquals(List.of("MOVE_NUMBER:1.", "MOVE:e4", "NAG:!?", "COMMENT:{best by test (1.d4)}", "MOVE:e5", "NAG:$2", "RESULT:1-0"),
+                     tokenize("1.e4!? {best by test (1.d4)} e5 $2 1-0"));
+        assertEquals(List.of("MOVE_NUMBER:1.", "MOVE:e4", "COMMENT:; 2. d4 is also good", "MOVE:e5"),
+                     tokenize("1.e4 ; 2. d4 is also good\ne5"));
+        assertEquals(List.of("MOVE:e4", "COMMENT:{unterminated"), tokenize("e4 {unterminated"));
+    }
+
+    @Test
+    public void testVariations() {
+        assertEquals(List.of("MOVE_NUMBER:1.", "MOVE:e4", "VARIATION_START:(", "MOVE_NUMBER:1.", "MOVE:d4", "VARIATION_START:(",
+                             "MOVE_NUMBER:1.", "MOVE:c4", "VARIATION_END:)", "VARIATION_END:)", "MOVE_NUMBER:1...", "MOVE:e5"),
+                     tokenize("1.e4 (1.d4 (1.c4)) 1...e5"));
+    }
+
+    @Test
+    public void testBounds() {
+        String text = "[Event \"?\"] 1.e4 e5 2.Nf3 [Event \"?\"]";
+        PGNTokenizer tokenizer = new PGNTokenizer(text, 12, 26);
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertEquals(1, tokenizer.getMoveNumber());
+        assertEquals(TokenType.MOVE, tokenizer.next());
+        assertEquals(14, tokenizer.getTokenStart());
+        assertEquals(16, tokenizer.getTokenEnd());
+        assertThrows(IllegalStateException.class, () -> tokenizer.getMoveNumber());
+        assertEquals(TokenType.MOVE, tokenizer.next());
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertEquals(2, tokenizer.getMoveNumber());
+        assertEquals(TokenType.MOVE, tokenizer.next());
+        assertEquals("Nf3", tokenizer.getToken());
+        assertNull(tokenizer.next());
+        assertNull(tokenizer.getTokenType());
+
+        assertThrows(IllegalArgumentException.class, () -> new PGNTokenizer(text, 12, 100));
+    }
+}
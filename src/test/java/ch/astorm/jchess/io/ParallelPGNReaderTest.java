@@ -0,0 +1,101 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.JChessGame.Status;
+import ch.astorm.jchess.io.PGNReader.PGNReaderException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class ParallelPGNReaderTest {
+    private static final String[] MOVES = {
+        "1.e4 e5 2.Nf3 Nc6 3.Bb5 a6 ",
+        "1.d4 d5 2.c4 e6 ",
+        "1.e4 c5 2.Nf3 d6 3.d4 cxd4 4.Nxd4 Nf6 5.Nc3 a6 ",
+        "1.f3 e5 2.g4 Qh4# "
+    };
+
+    private static String newPGN(int games) {
+        StringBuilder pgn = new StringBuilder();
+        for(int i=0 ; i<games ; ++i) {
+            String moves = MOVES[i%MOVES.length];
+            pgn.append("[Event \"Game ").append(i).append("\"]\n");
+            pgn.append("[Site \"Lausanne\"]\n");
+            pgn.append("\n");
+            pgn.append(moves).append(moves.contains("#") ? "0-1" : "1/2-1/2").append("\n\n");
+        }
+        return pgn.toString();
+    }
+
+    private static List<String> getEvents(Stream<JChessGame> games) {
+        return games.map(g -> g.getMetadata().get("Event")).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        String pgn = newPGN(50);
+        List<String> expected = new ArrayList<>();
+        for(int i=0 ; i<50 ; ++i) { expected.add("Game "+i); }
+
+        try(ParallelPGNReader reader = new ParallelPGNReader(4)) {
+            reader.setChunkSize(3);
+            assertEquals(expected, getEvents(reader.games(new StringReader(pgn), true)));
+
+            reader.setChunkSize(100);
+            assertEquals(expected, getEvents(reader.games(new StringReader(pgn), true)));
+        }
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        String pgn = newPGN(50);
+        try(ParallelPGNReader reader = new ParallelPGNReader(4)) {
+            reader.setChunkSize(2);
+            List<JChessGame> games = reader.games(new StringReader(pgn), false).collect(Collectors.toList());
+            assertEquals(50, games.size());
+
+            Set<String> events = new HashSet<>(getEvents(games.stream()));
+            for(int i=0 ; i<50 ; ++i) { assertTrue(events.contains("Game "+i)); }
+
+            long mates = games.stream().filter(g -> g.getStatus()==Status.WIN_BLACK).count();
+            assertEquals(12, mates);
+        }
+    }
+
+    @Test
+    public void testEarlyTermination() throws Exception {
+        String pgn = newPGN(200);
+        try(ParallelPGNReader reader = new ParallelPGNReader(2);
+            Stream<JChessGame> games = reader.games(new StringReader(pgn), true)) {
+            reader.setChunkSize(1);
+            assertEquals(List.of("Game 0", "Game 1", "Game 2"), getEvents(games.limit(3)));
+        }
+    }
+
+    @Test
+    public void testNoHeaders() throws Exception {
+        String pgn = "1.e4 d6 2.d4  0-1\n\n1.e4 d6 2.d4  1-0\n\n1.e4 d6 2.d4  1/2-1/2";
+        try(ParallelPGNReader reader = new ParallelPGNReader(2)) {
+            List<Status> statuses = reader.games(new StringReader(pgn), true).map(JChessGame::getStatus).collect(Collectors.toList());
+            assertEquals(List.of(Status.WIN_BLACK, Status.WIN_WHITE, Status.DRAW), statuses);
+        }
+    }
+
+    @Test
+    public void testInvalidGame() throws Exception {
+        String pgn = newPGN(10)+"[Event \"Invalid\"]\n\n1.e4 d6 2.d5  0-1\n\n"+newPGN(10);
+        try(ParallelPGNReader reader = new ParallelPGNReader(2)) {
+            reader.setChunkSize(2);
+            PGNReaderException pe = assertThrows(PGNReaderException.class, () -> reader.games(new StringReader(pgn), true).count());
+            assertEquals("d5", pe.getFailedMove());
+        }
+    }
+}
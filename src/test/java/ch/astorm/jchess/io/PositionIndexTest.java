@@ -0,0 +1,73 @@
+package ch.astorm.jchess.io;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Position;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PositionIndexTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFind() throws Exception {
+        List<JChessGame> games = PGNResources.readGames("Nakamura.zip", 300);
+
+        Map<Long, TreeSet<Integer>> expected = new HashMap<>();
+        for(int i=0 ; i<games.size() ; ++i) {
+            Position position = games.get(i).getPosition();
+            while(position!=null) {
+                expected.computeIfAbsent(position.getZobristKey(), k -> new TreeSet<>()).add(i);
+                position = position.getPreviousPosition();
+            }
+        }
+
+        //small runs to merge several of them, then runs larger than the initial arrays
+        Path indexPath = tempDir.resolve("positions.idx");
+        for(int runSize : new int[] { 1000, 10000 }) {
+            assertEquals(300, PositionIndex.build(games.iterator(), indexPath, runSize));
+
+            PositionIndex index = new PositionIndex(indexPath);
+            try {
+                assertEquals(expected.values().stream().mapToInt(TreeSet::size).sum(), index.size());
+                for(Map.Entry<Long, TreeSet<Integer>> entry : expected.entrySet()) {
+                    assertArrayEquals(entry.getValue().stream().mapToInt(Integer::intValue).toArray(), index.find(entry.getKey()));
+                }
+
+                assertEquals(300, index.find(JChessGame.newGame().getPosition()).length);
+                JChessGame game = JChessGame.newGame();
+                game.play("a4", "h5", "Ra3", "Rh6");
+                assertEquals(0, index.find(game.getPosition()).length);
+            } finally {
+                index.close();
+            }
+            assertThrows(IllegalStateException.class, () -> index.find(42));
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        Path indexPath = tempDir.resolve("positions.idx");
+        assertEquals(0, PositionIndex.build(Collections.emptyIterator(), indexPath));
+        try(PositionIndex index = new PositionIndex(indexPath)) {
+            assertEquals(0, index.size());
+            assertEquals(0, index.find(42).length);
+        }
+
+        Path invalidPath = tempDir.resolve("invalid.idx");
+        Files.write(invalidPath, "invalid index".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new PositionIndex(invalidPath));
+    }
+}
@@ -0,0 +1,83 @@
+package ch.astorm.jchess.util;
+
+import ch.astorm.jchess.core.Move;
+import ch.astorm.jchess.io.EPDReader;
+import ch.astorm.jchess.io.EPDRecord;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class EPDRunnerTest {
+    private static final String SUITE =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 ;D1 20 ;D2 400 ;D3 8902 ;D7 3195901860\n"+
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1 ;D1 48 ;D2 2039 ;D3 97862\n"+
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1 ;D1 14 ;D2 191 ;D3 2813\n"+
+            "7k/8/6K1/8/8/8/8/1Q6 w - - bm Qb8# Qh1+; am Qa1; id \"mate\";\n"+
+            "7k/8/6K1/8/8/8/8/1Q6 w - - bm Qb9; id \"illegal\";\n"+
+            "7k/8/6K1/8/8/8/8/1Q6 w - - 0 1 ;D1 x\n";
+
+    private static List<EPDRecord> read(String epd) throws IOException {
+        try(EPDReader reader = new EPDReader(new StringReader(epd))) {
+            return reader.records().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testRun() throws IOException {
+        List<EPDRecord> records = read(SUITE);
+        try(EPDRunner runner = new EPDRunner(4)) {
+            List<EPDRunner.Result> results = runner.run(records);
+            assertEquals(records.size(), results.size());
+            for(int i=0 ; i<records.size() ; ++i) { assertEquals(records.get(i), results.get(i).getRecord()); }
+
+            //the depth 7 is ignored
+            assertTrue(results.get(0).isSuccess());
+            assertEquals(3, results.get(0).getChecks());
+            assertTrue(results.get(0).getDuration()>0);
+            assertTrue(results.get(1).isSuccess());
+
+            assertFalse(results.get(2).isSuccess());
+            assertEquals(1, results.get(2).getFailures().size());
+            assertEquals("D3: expected 2813 nodes but was 2812", results.get(2).getFailures().get(0));
+
+            assertTrue(results.get(3).isSuccess());
+            assertEquals(2, results.get(3).getChecks());
+            assertFalse(results.get(4).isSuccess());
+            assertEquals("illegal: FAILED [bm: Qb9 is not a legal move]", results.get(4).toString().replaceAll(" \\(.*", ""));
+            assertFalse(results.get(5).isSuccess());
+
+            runner.setMaxDepth(2);
+            assertEquals(2, runner.check(records.get(0)).getChecks());
+            assertThrows(IllegalArgumentException.class, () -> runner.setMaxDepth(0));
+        }
+    }
+
+    @Test
+    public void testMoveSearcher() throws IOException {
+        List<EPDRecord> records = read(SUITE).subList(3, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try(EPDRunner runner = new EPDRunner(executor)) {
+            runner.setMoveSearcher(p -> p.getLegalMoves().stream().filter(m -> m.toString().equals("Qb8")).findFirst().orElse(null));
+            assertTrue(runner.run(records).get(0).isSuccess());
+
+            runner.setMoveSearcher(p -> p.getLegalMoves().stream().filter(m -> m.toString().equals("Qa1")).findFirst().orElse(null));
+            List<String> failures = runner.run(records).get(0).getFailures();
+            assertEquals(2, failures.size());
+            assertEquals("bm: Qa1 is not in [Qb8#, Qh1+]", failures.get(0));
+            assertEquals("am: Qa1 is in [Qa1]", failures.get(1));
+
+            runner.setMoveSearcher(p -> (Move)null);
+            assertFalse(runner.run(records).get(0).isSuccess());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ch.astorm.jchess.util;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class ParallelPerftTest {
+
+    @Test
+    public void testCount() {
+        try(ParallelPerft perft = new ParallelPerft(4)) {
+            for(Representation representation : Representation.values()) {
+                Position position = JChessGame.newGame(representation).getPosition();
+                assertEquals(1, perft.count(position, 0));
+                assertEquals(20, perft.count(position, 1));
+                assertEquals(8902, perft.count(position, 3));
+            }
+
+            Position position = JChessGame.newGame(Representation.BITBOARD).getPosition();
+            assertEquals(197281, perft.count(position, 4));
+
+            perft.setSplitDepth(3);
+            assertEquals(197281, perft.count(position, 4));
+            assertEquals(43238, perft.count(PerftTest.newPosition(PerftTest.POSITION_3, Color.WHITE), 4));
+
+            //the position is left as it was
+            assertEquals(20, position.getLegalMoves().size());
+            assertEquals(0, position.getMoveHistory().size());
+            assertThrows(IllegalArgumentException.class, () -> perft.setSplitDepth(0));
+        }
+    }
+
+    @Test
+    public void testAnalyze() {
+        try(ParallelPerft perft = new ParallelPerft(ForkJoinPool.commonPool())) {
+            perft.setSplitDepth(2);
+
+            Position position = PerftTest.newPosition(PerftTest.KIWIPETE, Color.WHITE);
+            Perft.Result result = perft.analyze(position, 3);
+            assertEquals(Perft.analyze(position, 3).toString(), result.toString());
+            assertEquals(97862, result.getNodes());
+            assertEquals(45, result.getEnPassants());
+            assertEquals(3162, result.getCastles());
+            assertEquals(1, result.getCheckmates());
+
+            result = perft.analyze(PerftTest.newPosition(PerftTest.POSITION_4, Color.WHITE), 3);
+            assertEquals(120, result.getPromotions());
+            assertEquals(22, result.getCheckmates());
+        }
+    }
+
+    @Test
+    public void testDivide() {
+        try(ParallelPerft perft = new ParallelPerft(3)) {
+            Position position = PerftTest.newPosition(PerftTest.POSITION_4, Color.WHITE);
+            Map<String, Long> divide = perft.divide(position, 3);
+            Map<String, Long> expected = Perft.divide(position, 3);
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(divide.entrySet()));
+            assertEquals(9467, divide.values().stream().mapToLong(Long::longValue).sum());
+        }
+    }
+}
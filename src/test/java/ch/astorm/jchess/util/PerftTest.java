@@ -0,0 +1,155 @@
+package ch.astorm.jchess.util;
+
+import ch.astorm.jchess.JChessGame;
+import ch.astorm.jchess.core.Color;
+import ch.astorm.jchess.core.Moveable;
+import ch.astorm.jchess.core.Position;
+import ch.astorm.jchess.core.Position.Representation;
+import ch.astorm.jchess.core.entities.Bishop;
+import ch.astorm.jchess.core.entities.King;
+import ch.astorm.jchess.core.entities.Knight;
+import ch.astorm.jchess.core.entities.Pawn;
+import ch.astorm.jchess.core.entities.Queen;
+import ch.astorm.jchess.core.entities.Rook;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class PerftTest {
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R";
+    static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8";
+    static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1";
+
+    @Test
+    public void testInitialPosition() {
+        for(Representation representation : Representation.values()) {
+            Position position = JChessGame.newGame(representation).getPosition();
+            assertEquals(1, Perft.count(position, 0));
+            assertEquals(20, Perft.count(position, 1));
+            assertEquals(400, Perft.count(position, 2));
+            assertEquals(8902, Perft.count(position, 3));
+        }
+
+        Position position = JChessGame.newGame(Representation.BITBOARD).getPosition();
+        assertEquals(197281, Perft.count(position, 4));
+
+        Perft.Result result = Perft.analyze(position, 4);
+        assertEquals(197281, result.getNodes());
+        assertEquals(1576, result.getCaptures());
+        assertEquals(0, result.getEnPassants());
+        assertEquals(0, result.getCastles());
+        assertEquals(0, result.getPromotions());
+        assertEquals(469, result.getChecks());
+        assertEquals(8, result.getCheckmates());
+
+        //the position is restored
+        assertEquals(20, position.getLegalMoves().size());
+        assertEquals(0, position.getMoveHistory().size());
+    }
+
+    @Test
+    public void testKiwipete() {
+        Position position = newPosition(KIWIPETE, Color.WHITE);
+        assertEquals(48, Perft.count(position, 1));
+        assertEquals(2039, Perft.count(position, 2));
+        assertEquals(97862, Perft.count(position, 3));
+
+        Perft.Result result = Perft.analyze(position, 3);
+        assertEquals(97862, result.getNodes());
+        assertEquals(17102, result.getCaptures());
+        assertEquals(45, result.getEnPassants());
+        assertEquals(3162, result.getCastles());
+        assertEquals(0, result.getPromotions());
+        assertEquals(993, result.getChecks());
+        assertEquals(1, result.getCheckmates());
+    }
+
+    @Test
+    public void testPosition3() {
+        Position position = newPosition(POSITION_3, Color.WHITE);
+        assertEquals(14, Perft.count(position, 1));
+        assertEquals(191, Perft.count(position, 2));
+        assertEquals(2812, Perft.count(position, 3));
+        assertEquals(43238, Perft.count(position, 4));
+
+        Perft.Result result = Perft.analyze(position, 4);
+        assertEquals(3348, result.getCaptures());
+        assertEquals(123, result.getEnPassants());
+        assertEquals(1680, result.getChecks());
+        assertEquals(17, result.getCheckmates());
+    }
+
+    @Test
+    public void testPosition4() {
+        Position position = newPosition(POSITION_4, Color.WHITE);
+        assertEquals(6, Perft.count(position, 1));
+        assertEquals(264, Perft.count(position, 2));
+        assertEquals(9467, Perft.count(position, 3));
+
+        Perft.Result result = Perft.analyze(position, 3);
+        assertEquals(1021, result.getCaptures());
+        assertEquals(4, result.getEnPassants());
+        assertEquals(0, result.getCastles());
+        assertEquals(120, result.getPromotions());
+        assertEquals(38, result.getChecks());
+        assertEquals(22, result.getCheckmates());
+    }
+
+    @Test
+    public void testDivide() {
+        Position position = JChessGame.newGame().getPosition();
+        Map<String, Long> divide = Perft.divide(position, 3);
+        assertEquals(20, divide.size());
+        assertEquals(600, divide.get("e2e4"));
+        assertEquals(380, divide.get("a2a3"));
+        assertEquals(8902, divide.values().stream().mapToLong(Long::longValue).sum());
+
+        divide = Perft.divide(newPosition(POSITION_4, Color.WHITE), 1);
+        assertEquals(6, divide.size());
+        assertEquals(1, divide.get("c4c5"));
+
+        divide = Perft.divide(newPosition("4k3/1P6/8/8/8/8/8/4K3", Color.WHITE), 1);
+        assertEquals(1, divide.get("b7b8q"));
+        assertEquals(1, divide.get("b7b8n"));
+        assertEquals(9, divide.size());
+
+        assertThrows(IllegalArgumentException.class, () -> Perft.divide(position, 0));
+        assertThrows(IllegalArgumentException.class, () -> Perft.count(position, -1));
+    }
+
+    /**
+     * Creates a position from the piece placement field of a FEN string.
+     * The kings and rooks are considered as never moved.
+     */
+    static Position newPosition(String placement, Color colorOnMove) {
+        JChessGame game = JChessGame.newEmptyGame(colorOnMove, Representation.BITBOARD);
+        String[] rows = placement.split("/");
+        for(int i=0 ; i<rows.length ; ++i) {
+            int column = 0;
+            for(char c : rows[i].toCharArray()) {
+                if(Character.isDigit(c)) {
+                    column += c-'0';
+                    continue;
+                }
+
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                game.getPosition().put(7-i, column, newMoveable(Character.toLowerCase(c), color));
+                ++column;
+            }
+        }
+        return game.getPosition();
+    }
+
+    private static Moveable newMoveable(char c, Color color) {
+        switch(c) {
+            case 'p': return new Pawn(color);
+            case 'n': return new Knight(color);
+            case 'b': return new Bishop(color);
+            case 'r': return new Rook(color);
+            case 'q': return new Queen(color);
+            case 'k': return new King(color);
+            default: throw new IllegalArgumentException("Invalid piece: "+c);
+        }
+    }
+}